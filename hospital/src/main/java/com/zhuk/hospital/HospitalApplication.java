@@ -1,12 +1,21 @@
 package com.zhuk.hospital;
 
 import com.zhuk.hospital.client.MedicationApiProperties;
+import com.zhuk.hospital.security.AuthenticationCacheProperties;
+import com.zhuk.hospital.security.TokenProperties;
+import com.zhuk.hospital.security.UserDetailsCacheProperties;
+import com.zhuk.hospital.service.MedicationOutboxProperties;
+import com.zhuk.hospital.service.TaskPartitionProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@EnableConfigurationProperties({MedicationApiProperties.class})
+@EnableScheduling
+@EnableConfigurationProperties({MedicationApiProperties.class, TaskPartitionProperties.class,
+        MedicationOutboxProperties.class, AuthenticationCacheProperties.class,
+        TokenProperties.class, UserDetailsCacheProperties.class})
 public class HospitalApplication {
 	public static void main(String[] args) {
 		SpringApplication.run(HospitalApplication.class, args);
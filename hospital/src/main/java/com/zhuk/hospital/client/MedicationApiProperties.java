@@ -4,6 +4,8 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+
 @Getter
 @Setter
 @ConfigurationProperties(prefix = "medication.api")
@@ -11,4 +13,43 @@ public class MedicationApiProperties {
     private String url;
     private String username;
     private String password;
+    private int maxAttempts = 3;
+    private int maxConnections = 100;
+    private int maxConnectionsPerRoute = 50;
+    private Duration keepAlive = Duration.ofSeconds(30);
+    private Duration idleEviction = Duration.ofMinutes(1);
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    private Duration readTimeout = Duration.ofSeconds(5);
+    private Duration connectionRequestTimeout = Duration.ofSeconds(1);
+    private int maxIdsPerRequest = 200;
+    private CircuitBreakerProperties circuitBreaker = new CircuitBreakerProperties();
+    private BulkheadProperties bulkhead = new BulkheadProperties();
+    private MetadataCacheProperties metadataCache = new MetadataCacheProperties();
+
+    @Getter
+    @Setter
+    public static class CircuitBreakerProperties {
+        private float failureRateThreshold = 50;
+        private float slowCallRateThreshold = 50;
+        private Duration slowCallDurationThreshold = Duration.ofSeconds(2);
+        private int slidingWindowSize = 20;
+        private int minimumNumberOfCalls = 10;
+        private Duration waitDurationInOpenState = Duration.ofSeconds(30);
+        private int permittedNumberOfCallsInHalfOpenState = 3;
+    }
+
+    @Getter
+    @Setter
+    public static class BulkheadProperties {
+        private int maxConcurrentCalls = 25;
+        private Duration maxWaitDuration = Duration.ZERO;
+    }
+
+    @Getter
+    @Setter
+    public static class MetadataCacheProperties {
+        private long maxSize = 10000;
+        private Duration ttl = Duration.ofMinutes(10);
+        private Duration absentTtl = Duration.ofSeconds(30);
+    }
 }
@@ -0,0 +1,56 @@
+package com.zhuk.hospital.client;
+
+import com.zhuk.hospital.enums.ApiMessageEnum;
+import com.zhuk.hospital.enums.ErrorCodeEnum;
+import com.zhuk.hospital.exception.BaseApiException;
+import com.zhuk.hospital.exception.medication.*;
+import com.zhuk.hospital.utils.ErrorCodeHelper;
+import com.zhuk.hospital.utils.MessageSourceWrapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class MedicationExceptionResolver {
+    private final MessageSourceWrapper messageSourceWrapper;
+    private final ErrorCodeHelper errorCodeHelper;
+
+    public BaseApiException resolve(HttpStatusCode statusCode) {
+        BaseApiException exception;
+        if(statusCode.value() == HttpStatus.BAD_REQUEST.value()) {
+            exception = new MedicationBadRequestException(HttpStatus.BAD_REQUEST,
+                    messageSourceWrapper.getMessageCode(ApiMessageEnum.MEDICATION_BAD_REQUEST),
+                    errorCodeHelper.getCode(ErrorCodeEnum.MEDICATION_BAD_REQUEST_CODE));
+        } else if(statusCode.value() == HttpStatus.UNAUTHORIZED.value()) {
+            exception = new MedicationUnauthorizedException(HttpStatus.UNAUTHORIZED,
+                    messageSourceWrapper.getMessageCode(ApiMessageEnum.MEDICATION_UNAUTHORIZED),
+                    errorCodeHelper.getCode(ErrorCodeEnum.MEDICATION_UNAUTHORIZED_CODE));
+        } else if(statusCode.value() == HttpStatus.FORBIDDEN.value()) {
+            exception = new MedicationForbiddenException(HttpStatus.FORBIDDEN,
+                    messageSourceWrapper.getMessageCode(ApiMessageEnum.MEDICATION_FORBIDDEN),
+                    errorCodeHelper.getCode(ErrorCodeEnum.MEDICATION_FORBIDDEN_CODE));
+        } else if(statusCode.value() == HttpStatus.NOT_FOUND.value()) {
+            exception = new MedicationNotFoundException(HttpStatus.NOT_FOUND,
+                    messageSourceWrapper.getMessageCode(ApiMessageEnum.MEDICATION_NOT_FOUND),
+                    errorCodeHelper.getCode(ErrorCodeEnum.MEDICATION_NOT_FOUND_CODE));
+        }
+        else {
+            exception = unknown();
+        }
+        return exception;
+    }
+
+    public MedicationUnavailableException unavailable() {
+        return new MedicationUnavailableException(HttpStatus.SERVICE_UNAVAILABLE,
+                messageSourceWrapper.getMessageCode(ApiMessageEnum.MEDICATION_UNAVAILABLE),
+                errorCodeHelper.getCode(ErrorCodeEnum.MEDICATION_UNAVAILABLE_CODE));
+    }
+
+    public MedicationUnknownException unknown() {
+        return new MedicationUnknownException(HttpStatus.INTERNAL_SERVER_ERROR,
+                messageSourceWrapper.getMessageCode(ApiMessageEnum.MEDICATION_UNKNOWN_EXCEPTION),
+                errorCodeHelper.getCode(ErrorCodeEnum.MEDICATION_UNKNOWN_ERROR_CODE));
+    }
+}
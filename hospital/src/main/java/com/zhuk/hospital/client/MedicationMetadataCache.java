@@ -0,0 +1,94 @@
+package com.zhuk.hospital.client;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.zhuk.hospital.dto.MedicationDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+public class MedicationMetadataCache implements MeterBinder {
+    public static final String CACHE_NAME = "medication.metadata";
+    private final MedicationRestClient medicationRestClient;
+    private final LoadingCache<Long, Optional<MedicationDto>> cache;
+
+    public MedicationMetadataCache(MedicationApiProperties medicationApiProperties,
+                                   MedicationRestClient medicationRestClient) {
+        this.medicationRestClient = medicationRestClient;
+        MedicationApiProperties.MetadataCacheProperties properties = medicationApiProperties.getMetadataCache();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .expireAfter(new MedicationMetadataExpiry(properties))
+                .recordStats()
+                .build(new MedicationMetadataLoader());
+    }
+
+    public Map<Long, MedicationDto> getAll(Collection<Long> ids) {
+        Map<Long, MedicationDto> medications = new HashMap<>();
+        cache.getAll(Set.copyOf(ids)).forEach((id, medication) ->
+                medication.ifPresent(medicationDto -> medications.put(id, medicationDto)));
+        return medications;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+    // an unknown id is kept only briefly, so a medication created after the lookup shows up soon
+    private static class MedicationMetadataExpiry implements Expiry<Long, Optional<MedicationDto>> {
+        private final long ttlNanos;
+        private final long absentTtlNanos;
+
+        private MedicationMetadataExpiry(MedicationApiProperties.MetadataCacheProperties properties) {
+            this.ttlNanos = properties.getTtl().toNanos();
+            this.absentTtlNanos = properties.getAbsentTtl().toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(@NonNull Long id, @NonNull Optional<MedicationDto> medication, long currentTime) {
+            return medication.isPresent() ? ttlNanos : absentTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(@NonNull Long id, @NonNull Optional<MedicationDto> medication,
+                                      long currentTime, long currentDuration) {
+            return expireAfterCreate(id, medication, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(@NonNull Long id, @NonNull Optional<MedicationDto> medication,
+                                    long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    private class MedicationMetadataLoader implements CacheLoader<Long, Optional<MedicationDto>> {
+        @Override
+        public Optional<MedicationDto> load(@NonNull Long id) {
+            return loadAll(Set.of(id)).get(id);
+        }
+
+        @Override
+        public Map<Long, Optional<MedicationDto>> loadAll(@NonNull Set<? extends Long> ids) {
+            Set<Long> requestedIds = Set.copyOf(ids);
+            Map<Long, MedicationDto> found = medicationRestClient.findAllByIds(requestedIds).stream()
+                    .collect(Collectors.toMap(MedicationDto::getId, Function.identity()));
+            return requestedIds.stream()
+                    .collect(Collectors.toMap(Function.identity(), id -> Optional.ofNullable(found.get(id))));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.zhuk.hospital.client;
+
+import com.zhuk.hospital.exception.medication.MedicationUnknownException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+
+@Configuration
+public class MedicationResilienceConfig {
+    public static final String MEDICATION = "medication";
+    public static final String STATE_TRANSITIONS_METRIC = "resilience4j.circuitbreaker.state.transitions";
+
+    @Bean
+    public CircuitBreakerRegistry medicationCircuitBreakerRegistry(MedicationApiProperties properties) {
+        MedicationApiProperties.CircuitBreakerProperties circuitBreaker = properties.getCircuitBreaker();
+        return CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(circuitBreaker.getFailureRateThreshold())
+                .slowCallRateThreshold(circuitBreaker.getSlowCallRateThreshold())
+                .slowCallDurationThreshold(circuitBreaker.getSlowCallDurationThreshold())
+                .slidingWindowSize(circuitBreaker.getSlidingWindowSize())
+                .minimumNumberOfCalls(circuitBreaker.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(circuitBreaker.getWaitDurationInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(circuitBreaker.getPermittedNumberOfCallsInHalfOpenState())
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .recordExceptions(IOException.class, ResourceAccessException.class, HttpServerErrorException.class,
+                        MedicationUnknownException.class)
+                .build());
+    }
+
+    @Bean
+    public CircuitBreaker medicationCircuitBreaker(CircuitBreakerRegistry medicationCircuitBreakerRegistry) {
+        return medicationCircuitBreakerRegistry.circuitBreaker(MEDICATION);
+    }
+
+    @Bean
+    public BulkheadRegistry medicationBulkheadRegistry(MedicationApiProperties properties) {
+        return BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(properties.getBulkhead().getMaxConcurrentCalls())
+                .maxWaitDuration(properties.getBulkhead().getMaxWaitDuration())
+                .build());
+    }
+
+    @Bean
+    public Bulkhead medicationBulkhead(BulkheadRegistry medicationBulkheadRegistry) {
+        return medicationBulkheadRegistry.bulkhead(MEDICATION);
+    }
+
+    @Bean
+    public MeterBinder medicationCircuitBreakerMetrics(CircuitBreakerRegistry medicationCircuitBreakerRegistry,
+                                                       CircuitBreaker medicationCircuitBreaker) {
+        return meterRegistry -> {
+            TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(medicationCircuitBreakerRegistry)
+                    .bindTo(meterRegistry);
+            medicationCircuitBreaker.getEventPublisher().onStateTransition(event -> meterRegistry
+                    .counter(STATE_TRANSITIONS_METRIC,
+                            "name", event.getCircuitBreakerName(),
+                            "from", event.getStateTransition().getFromState().name(),
+                            "to", event.getStateTransition().getToState().name())
+                    .increment());
+        };
+    }
+
+    @Bean
+    public MeterBinder medicationBulkheadMetrics(BulkheadRegistry medicationBulkheadRegistry) {
+        return meterRegistry -> TaggedBulkheadMetrics.ofBulkheadRegistry(medicationBulkheadRegistry)
+                .bindTo(meterRegistry);
+    }
+}
@@ -1,26 +1,37 @@
 package com.zhuk.hospital.client;
 
+import com.zhuk.hospital.dto.MedicationDto;
+import com.zhuk.hospital.dto.MedicationQuantityChangeDto;
+import com.zhuk.hospital.dto.MedicationQuantityChangeResultDto;
 import com.zhuk.hospital.dto.UpdateMedicationQuantityDto;
-import com.zhuk.hospital.enums.ApiMessageEnum;
-import com.zhuk.hospital.enums.ErrorCodeEnum;
-import com.zhuk.hospital.exception.BaseApiException;
-import com.zhuk.hospital.exception.medication.*;
-import com.zhuk.hospital.utils.ErrorCodeHelper;
-import com.zhuk.hospital.utils.MessageSourceWrapper;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
 @Component
 @RequiredArgsConstructor
 public class MedicationRestClient {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
     private final MedicationApiProperties medicationApiProperties;
-    private final MessageSourceWrapper messageSourceWrapper;
-    private final ErrorCodeHelper errorCodeHelper;
+    private final MedicationExceptionResolver medicationExceptionResolver;
     private final RestTemplate restTemplate;
+    private final CircuitBreaker medicationCircuitBreaker;
+    private final Bulkhead medicationBulkhead;
 
     public void reduceQuantity(Long medicationId, Integer quantity) {
         updateQuantity(medicationId, -quantity);
@@ -29,54 +40,63 @@ public class MedicationRestClient {
         updateQuantity(medicationId, quantity);
     }
 
-    private void updateQuantity(Long medicationId, Integer quantity) {
-        try {
-            restTemplate.exchange(
-                    getDefaultUriForMedicationId(medicationId),
-                    HttpMethod.PATCH,
-                    getHttpEntityForQuantity(quantity),
-                    Void.class);
+    public List<MedicationQuantityChangeResultDto> updateQuantities(List<MedicationQuantityChangeDto> changes) {
+        return updateQuantities(changes, UUID.randomUUID().toString());
+    }
+
+    public List<MedicationQuantityChangeResultDto> updateQuantities(List<MedicationQuantityChangeDto> changes,
+                                                                    String idempotencyKey) {
+        return exchange(medicationApiProperties.getUrl(), HttpMethod.PATCH,
+                new HttpEntity<>(changes, getIdempotentHeaders(idempotencyKey)),
+                new ParameterizedTypeReference<>() {}, medicationApiProperties.getMaxAttempts());
+    }
+
+    public List<MedicationDto> findAllByIds(Collection<Long> ids) {
+        List<Long> idList = List.copyOf(ids);
+        int chunkSize = medicationApiProperties.getMaxIdsPerRequest();
+        List<MedicationDto> medications = new ArrayList<>();
+        for (int from = 0; from < idList.size(); from += chunkSize) {
+            String uri = UriComponentsBuilder.fromUriString(medicationApiProperties.getUrl())
+                    .queryParam("ids", StringUtils.collectionToCommaDelimitedString(
+                            idList.subList(from, Math.min(from + chunkSize, idList.size()))))
+                    .toUriString();
+            medications.addAll(exchange(uri, HttpMethod.GET, new HttpEntity<>(getAuthHeaders()),
+                    new ParameterizedTypeReference<List<MedicationDto>>() {}, medicationApiProperties.getMaxAttempts()));
         }
-        catch (HttpStatusCodeException ex) {
-            throw getProperExceptionFromApi(ex);
-        } catch (Throwable ex) {
-            throw new MedicationUnknownException(HttpStatus.INTERNAL_SERVER_ERROR,
-                    messageSourceWrapper.getMessageCode(ApiMessageEnum.MEDICATION_UNKNOWN_EXCEPTION),
-                    errorCodeHelper.getCode(ErrorCodeEnum.MEDICATION_UNKNOWN_ERROR_CODE));
+        return medications;
+    }
+
+    private void updateQuantity(Long medicationId, Integer quantity) {
+        exchange(getDefaultUriForMedicationId(medicationId), HttpMethod.PATCH, getHttpEntityForQuantity(quantity),
+                new ParameterizedTypeReference<Void>() {}, medicationApiProperties.getMaxAttempts());
+    }
+
+    private <T> T exchange(String uri, HttpMethod method, HttpEntity<?> httpEntity,
+                           ParameterizedTypeReference<T> responseType, int maxAttempts) {
+        for(int attempt = 1; ; attempt++) {
+            try {
+                return Bulkhead.decorateSupplier(medicationBulkhead, CircuitBreaker.decorateSupplier(
+                        medicationCircuitBreaker,
+                        () -> restTemplate.exchange(uri, method, httpEntity, responseType).getBody())).get();
+            }
+            catch (CallNotPermittedException | BulkheadFullException ex) {
+                throw medicationExceptionResolver.unavailable();
+            } catch (ResourceAccessException ex) {
+                if(attempt >= maxAttempts) {
+                    throw medicationExceptionResolver.unknown();
+                }
+            } catch (HttpStatusCodeException ex) {
+                throw medicationExceptionResolver.resolve(ex.getStatusCode());
+            } catch (Throwable ex) {
+                throw medicationExceptionResolver.unknown();
+            }
         }
     }
     private HttpEntity<UpdateMedicationQuantityDto> getHttpEntityForQuantity(Integer quantity) {
         UpdateMedicationQuantityDto dto = UpdateMedicationQuantityDto.builder()
                 .quantity(quantity)
                 .build();
-        return new HttpEntity<>(dto, getAuthHeaders());
-    }
-
-    private BaseApiException getProperExceptionFromApi(HttpStatusCodeException ex) {
-        BaseApiException exception;
-        if(ex.getStatusCode() == HttpStatus.BAD_REQUEST) {
-            exception = new MedicationBadRequestException(HttpStatus.BAD_REQUEST,
-                    messageSourceWrapper.getMessageCode(ApiMessageEnum.MEDICATION_BAD_REQUEST),
-                    errorCodeHelper.getCode(ErrorCodeEnum.MEDICATION_BAD_REQUEST_CODE));
-        } else if(ex.getStatusCode() == HttpStatus.UNAUTHORIZED) {
-            exception = new MedicationUnauthorizedException(HttpStatus.UNAUTHORIZED,
-                    messageSourceWrapper.getMessageCode(ApiMessageEnum.MEDICATION_UNAUTHORIZED),
-                    errorCodeHelper.getCode(ErrorCodeEnum.MEDICATION_UNAUTHORIZED_CODE));
-        } else if(ex.getStatusCode() == HttpStatus.FORBIDDEN) {
-            exception = new MedicationForbiddenException(HttpStatus.FORBIDDEN,
-                    messageSourceWrapper.getMessageCode(ApiMessageEnum.MEDICATION_FORBIDDEN),
-                    errorCodeHelper.getCode(ErrorCodeEnum.MEDICATION_FORBIDDEN_CODE));
-        } else if(ex.getStatusCode() == HttpStatus.NOT_FOUND) {
-            exception = new MedicationNotFoundException(HttpStatus.NOT_FOUND,
-                    messageSourceWrapper.getMessageCode(ApiMessageEnum.MEDICATION_NOT_FOUND),
-                    errorCodeHelper.getCode(ErrorCodeEnum.MEDICATION_NOT_FOUND_CODE));
-        }
-        else {
-            exception = new MedicationUnknownException(HttpStatus.INTERNAL_SERVER_ERROR,
-                    messageSourceWrapper.getMessageCode(ApiMessageEnum.MEDICATION_UNKNOWN_EXCEPTION),
-                    errorCodeHelper.getCode(ErrorCodeEnum.MEDICATION_UNKNOWN_ERROR_CODE));
-        }
-        return exception;
+        return new HttpEntity<>(dto, getIdempotentHeaders(UUID.randomUUID().toString()));
     }
 
     private HttpHeaders getAuthHeaders() {
@@ -85,6 +105,12 @@ public class MedicationRestClient {
         return headers;
     }
 
+    private HttpHeaders getIdempotentHeaders(String idempotencyKey) {
+        HttpHeaders headers = getAuthHeaders();
+        headers.set(IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        return headers;
+    }
+
     private String getDefaultUriForMedicationId(Long medicationId) {
         return UriComponentsBuilder.fromUriString(medicationApiProperties.getUrl() + "/"+ medicationId.toString())
                 .toUriString();
@@ -2,15 +2,18 @@ package com.zhuk.hospital.controller;
 
 import com.zhuk.hospital.dto.NewTaskDto;
 import com.zhuk.hospital.dto.TaskDto;
+import com.zhuk.hospital.dto.TaskPageDto;
 import com.zhuk.hospital.service.TaskService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -19,14 +22,22 @@ import java.util.UUID;
 @RequestMapping("api/hospital/tasks")
 public class TasksController {
     private final TaskService taskService;
-    @Operation(summary = "Get all tasks for today for departments connected to current user")
+    @Operation(summary = "Get page of tasks in [from, to) period for departments connected to current user, " +
+            "by default period is today. Pass next_cursor from response as cursor to get next page")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "All tasks are shown."),
+            @ApiResponse(responseCode = "200", description = "Page of tasks is shown."),
+            @ApiResponse(responseCode = "400", description = "Error code 6004: Provided page cursor is not valid."),
             @ApiResponse(responseCode = "401", description = "User is not authorized.")
     })
     @GetMapping
-    public ResponseEntity<List<TaskDto>> findAll() {
-        return ResponseEntity.ok(taskService.findAll());
+    public ResponseEntity<TaskPageDto> findAll(
+            @RequestParam(value = "from", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "100") int size) {
+        return ResponseEntity.ok(taskService.findAll(from, to, cursor, size));
     }
 
     @Operation(summary = "Get task by provided id")
@@ -0,0 +1,31 @@
+package com.zhuk.hospital.converter;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Converter
+public class LocalTimeListConverter implements AttributeConverter<List<LocalTime>, String> {
+    private static final String SEPARATOR = ",";
+
+    @Override
+    public String convertToDatabaseColumn(List<LocalTime> times) {
+        return times.stream()
+                .map(LocalTime::toString)
+                .collect(Collectors.joining(SEPARATOR));
+    }
+
+    @Override
+    public List<LocalTime> convertToEntityAttribute(String value) {
+        if(value == null || value.isEmpty()) {
+            return List.of();
+        }
+        return Arrays.stream(value.split(SEPARATOR))
+                .map(LocalTime::parse)
+                .toList();
+    }
+}
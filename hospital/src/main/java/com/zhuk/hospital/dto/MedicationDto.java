@@ -0,0 +1,20 @@
+package com.zhuk.hospital.dto;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+@Value
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@Builder
+@Jacksonized
+public class MedicationDto {
+    Long id;
+    String name;
+    String manufacturer;
+    String type;
+    Integer weight;
+    String additionalInfo;
+}
@@ -0,0 +1,17 @@
+package com.zhuk.hospital.dto;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+@Value
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@Builder(toBuilder = true)
+@Jacksonized
+public class MedicationQuantityChangeResultDto {
+    Long medicationId;
+    Integer appliedQuantity;
+    Integer remainingQuantity;
+}
@@ -9,11 +9,13 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Value
-@Builder
+@Builder(toBuilder = true)
 @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
 public class TaskDto {
     UUID id;
     String patient;
     Long medicationId;
+    String medicationName;
+    String medicationType;
     LocalDateTime dateTimeOfIssue;
 }
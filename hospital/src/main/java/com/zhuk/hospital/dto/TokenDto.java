@@ -0,0 +1,15 @@
+package com.zhuk.hospital.dto;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class TokenDto {
+    String accessToken;
+    String tokenType;
+    long expiresIn;
+}
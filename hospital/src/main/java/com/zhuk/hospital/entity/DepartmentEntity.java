@@ -20,7 +20,7 @@ public class DepartmentEntity {
     private String description;
     @ManyToMany(mappedBy = "departments")
     private List<UserEntity> users;
-    @OneToMany(mappedBy = "department", fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "department")
     private List<TaskEntity> tasks;
     @PreRemove
     private void removeDepartmentFromUsers() {
@@ -0,0 +1,33 @@
+package com.zhuk.hospital.entity;
+
+import com.zhuk.hospital.converter.LocalTimeListConverter;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "prescription_schedules")
+public class PrescriptionScheduleEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String patient;
+    private Long medicationId;
+    private LocalDate startDay;
+    private LocalDate endDay;
+    @Convert(converter = LocalTimeListConverter.class)
+    private List<LocalTime> timeOfIssuing;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "department_id")
+    private DepartmentEntity department;
+}
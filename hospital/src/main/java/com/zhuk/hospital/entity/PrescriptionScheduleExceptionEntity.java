@@ -0,0 +1,28 @@
+package com.zhuk.hospital.entity;
+
+import com.zhuk.hospital.enums.ScheduleExceptionTypeEnum;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UuidGenerator;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "prescription_schedule_exceptions")
+public class PrescriptionScheduleExceptionEntity {
+    @Id
+    @UuidGenerator
+    private UUID id;
+    private Long scheduleId;
+    private LocalDateTime dateTimeOfIssue;
+    @Enumerated(EnumType.STRING)
+    private ScheduleExceptionTypeEnum type;
+}
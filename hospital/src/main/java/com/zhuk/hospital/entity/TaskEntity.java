@@ -23,7 +23,7 @@ public class TaskEntity {
     String patient;
     Long medicationId;
     LocalDateTime dateTimeOfIssue;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "department_id")
     private DepartmentEntity department;
 }
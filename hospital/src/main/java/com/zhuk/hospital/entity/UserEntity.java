@@ -23,7 +23,8 @@ public class UserEntity {
     private String password;
     @Enumerated(EnumType.STRING)
     private UserRoleEnum role;
-    @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE}, fetch = FetchType.EAGER)
+    private int tokenVersion;
+    @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinTable(
             name = "user_department",
             joinColumns = @JoinColumn(name = "user_id"),
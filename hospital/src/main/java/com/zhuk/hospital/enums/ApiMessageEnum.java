@@ -7,16 +7,20 @@ public enum ApiMessageEnum {
     USER_ALREADY_EXISTS("security.user.already-exists"),
     USER_NOT_FOUND("security.user.not-found"),
     USER_UNKNOWN_EXCEPTION("security.user.unknown-exception"),
+    USER_BAD_CREDENTIALS("security.user.bad-credentials"),
+    USER_SESSION_EXPIRED("security.user.session-expired"),
     DEPARTMENT_NOT_FOUND("api.department.not-found"),
     DEPARTMENT_ALREADY_EXISTS("api.department.already-exists"),
     TASK_NOT_FOUND("api.task.not-found"),
     TASK_OUTDATED("api.task.outdated"),
     TASK_NOT_ALLOWED("api.task.not-allowed"),
+    TASK_CURSOR_INVALID("api.task.cursor-invalid"),
     MEDICATION_UNKNOWN_EXCEPTION("api.medication.unknown"),
     MEDICATION_UNAUTHORIZED("api.medication.unauthorized"),
     MEDICATION_FORBIDDEN("api.medication.forbidden"),
     MEDICATION_BAD_REQUEST("api.medication.bad-request"),
-    MEDICATION_NOT_FOUND("api.medication.not-found");
+    MEDICATION_NOT_FOUND("api.medication.not-found"),
+    MEDICATION_UNAVAILABLE("api.medication.unavailable");
     private final String code;
     ApiMessageEnum(String code) {
         this.code = code;
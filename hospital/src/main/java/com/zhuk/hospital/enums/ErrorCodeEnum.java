@@ -8,15 +8,19 @@ public enum ErrorCodeEnum {
     MEDICATION_FORBIDDEN_CODE(5002),
     MEDICATION_BAD_REQUEST_CODE(5003),
     MEDICATION_NOT_FOUND_CODE(5004),
+    MEDICATION_UNAVAILABLE_CODE(5005),
     MEDICATION_UNKNOWN_ERROR_CODE(5999),
     TASK_NOT_FOUND_CODE(6001),
     TASK_OUTDATED_CODE(6002),
     TASK_NOT_ALLOWED_CODE(6003),
+    TASK_CURSOR_INVALID_CODE(6004),
     DEPARTMENT_NOT_FOUND_CODE(7001),
     DEPARTMENT_ALREADY_EXISTS(7002),
     USER_NOT_FOUND_CODE(8001),
     USER_ALREADY_EXISTS_CODE(8002),
     USER_UNKNOWN_EXCEPTION_CODE(8003),
+    USER_BAD_CREDENTIALS_CODE(8004),
+    USER_SESSION_EXPIRED_CODE(8005),
     UNKNOWN_ERROR_CODE(9999);
     private final int code;
     ErrorCodeEnum(int code) {
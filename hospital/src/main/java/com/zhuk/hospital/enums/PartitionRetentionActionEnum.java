@@ -0,0 +1,6 @@
+package com.zhuk.hospital.enums;
+
+public enum PartitionRetentionActionEnum {
+    DETACH,
+    DROP
+}
@@ -0,0 +1,5 @@
+package com.zhuk.hospital.enums;
+
+public enum ScheduleExceptionTypeEnum {
+    CANCELLED
+}
@@ -0,0 +1,10 @@
+package com.zhuk.hospital.exception.medication;
+
+import com.zhuk.hospital.exception.BaseApiException;
+import org.springframework.http.HttpStatus;
+
+public class MedicationUnavailableException extends BaseApiException {
+    public MedicationUnavailableException(HttpStatus status, String message, int errorCode) {
+        super(status, message, errorCode);
+    }
+}
@@ -0,0 +1,10 @@
+package com.zhuk.hospital.exception.task;
+
+import com.zhuk.hospital.exception.BaseApiException;
+import org.springframework.http.HttpStatus;
+
+public class TaskCursorInvalidException extends BaseApiException {
+    public TaskCursorInvalidException(HttpStatus status, String message, int errorCode) {
+        super(status, message, errorCode);
+    }
+}
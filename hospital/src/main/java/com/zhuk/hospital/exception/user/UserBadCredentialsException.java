@@ -0,0 +1,10 @@
+package com.zhuk.hospital.exception.user;
+
+import com.zhuk.hospital.exception.BaseApiException;
+import org.springframework.http.HttpStatus;
+
+public class UserBadCredentialsException extends BaseApiException {
+    public UserBadCredentialsException(HttpStatus status, String message, int errorCode) {
+        super(status, message, errorCode);
+    }
+}
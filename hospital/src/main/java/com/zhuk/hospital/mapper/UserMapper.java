@@ -13,5 +13,6 @@ public interface UserMapper {
 
     @InheritInverseConfiguration
     @Mapping(target = "departments", ignore = true)
+    @Mapping(target = "tokenVersion", ignore = true)
     UserEntity map(UserDto userDto);
 }
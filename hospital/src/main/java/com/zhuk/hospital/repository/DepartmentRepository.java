@@ -1,17 +1,26 @@
 package com.zhuk.hospital.repository;
 
 import com.zhuk.hospital.entity.DepartmentEntity;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface DepartmentRepository extends JpaRepository<DepartmentEntity, Long> {
+    @Override
+    @EntityGraph(attributePaths = "tasks")
+    List<DepartmentEntity> findAll();
     Optional<DepartmentEntity> findDepartmentEntityByName(String name);
+    @Query("SELECT d.id FROM DepartmentEntity d")
+    List<Long> findAllIds();
+    @Query("SELECT d.id FROM UserEntity u JOIN u.departments d WHERE u.username = :username")
+    List<Long> findAllIdsByUsername(@Param("username") String username);
     @Modifying
     @Query("UPDATE DepartmentEntity d SET d.name = :name, d.description = :description WHERE d.id = :id")
     void updateById(@Param("name")String name, @Param("description") String description,
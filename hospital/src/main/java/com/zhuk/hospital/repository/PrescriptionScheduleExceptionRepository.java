@@ -0,0 +1,23 @@
+package com.zhuk.hospital.repository;
+
+import com.zhuk.hospital.entity.PrescriptionScheduleExceptionEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PrescriptionScheduleExceptionRepository extends JpaRepository<PrescriptionScheduleExceptionEntity, UUID> {
+    @Query("SELECT e FROM PrescriptionScheduleExceptionEntity e WHERE e.scheduleId IN :scheduleIds " +
+            "AND e.dateTimeOfIssue >= :from AND e.dateTimeOfIssue < :to")
+    List<PrescriptionScheduleExceptionEntity> findAllByScheduleIdsAndPeriod(@Param("scheduleIds") Collection<Long> scheduleIds,
+                                                                            @Param("from") LocalDateTime from,
+                                                                            @Param("to") LocalDateTime to);
+
+    boolean existsByScheduleIdAndDateTimeOfIssue(Long scheduleId, LocalDateTime dateTimeOfIssue);
+}
@@ -0,0 +1,20 @@
+package com.zhuk.hospital.repository;
+
+import com.zhuk.hospital.entity.PrescriptionScheduleEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PrescriptionScheduleRepository extends JpaRepository<PrescriptionScheduleEntity, Long> {
+    @Query("SELECT s FROM PrescriptionScheduleEntity s WHERE s.department.id IN :departmentIds " +
+            "AND s.startDay <= :lastDay AND s.endDay > :firstDay")
+    List<PrescriptionScheduleEntity> findAllByDepartmentIdsAndPeriod(@Param("departmentIds") Collection<Long> departmentIds,
+                                                                     @Param("firstDay") LocalDate firstDay,
+                                                                     @Param("lastDay") LocalDate lastDay);
+}
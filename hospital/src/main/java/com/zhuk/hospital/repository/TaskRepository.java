@@ -1,11 +1,36 @@
 package com.zhuk.hospital.repository;
 
 import com.zhuk.hospital.entity.TaskEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface TaskRepository extends JpaRepository<TaskEntity, UUID> {
+    @Query("SELECT t FROM TaskEntity t WHERE t.department.id IN :departmentIds " +
+            "AND t.dateTimeOfIssue >= :from AND t.dateTimeOfIssue < :to " +
+            "ORDER BY t.dateTimeOfIssue, t.id")
+    List<TaskEntity> findAllByDepartmentIdsAndPeriod(@Param("departmentIds") Collection<Long> departmentIds,
+                                                     @Param("from") LocalDateTime from,
+                                                     @Param("to") LocalDateTime to,
+                                                     Pageable pageable);
+
+    @Query("SELECT t FROM TaskEntity t WHERE t.department.id IN :departmentIds " +
+            "AND t.dateTimeOfIssue >= :from AND t.dateTimeOfIssue < :to " +
+            "AND t.dateTimeOfIssue >= :afterDateTime " +
+            "AND (t.dateTimeOfIssue > :afterDateTime OR t.id > :afterId) " +
+            "ORDER BY t.dateTimeOfIssue, t.id")
+    List<TaskEntity> findAllByDepartmentIdsAndPeriodAfter(@Param("departmentIds") Collection<Long> departmentIds,
+                                                          @Param("from") LocalDateTime from,
+                                                          @Param("afterDateTime") LocalDateTime afterDateTime,
+                                                          @Param("afterId") UUID afterId,
+                                                          @Param("to") LocalDateTime to,
+                                                          Pageable pageable);
 }
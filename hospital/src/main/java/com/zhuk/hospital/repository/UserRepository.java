@@ -1,20 +1,32 @@
 package com.zhuk.hospital.repository;
 
 import com.zhuk.hospital.entity.UserEntity;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<UserEntity, Long> {
+    @Override
+    @EntityGraph(attributePaths = "departments")
+    List<UserEntity> findAll();
+    @EntityGraph(attributePaths = "departments")
+    Optional<UserEntity> findWithDepartmentsByUsername(String username);
     Optional<UserEntity> findByUsername(String username);
     void deleteByUsername(String username);
     @Modifying
     @Query("UPDATE UserEntity u SET u.username = :username, u.password = :password WHERE u.username = :oldUsername")
     void updateByUsername(@Param("oldUsername")String oldUsername, @Param("username") String username,
                           @Param("password") String password);
+    @Query("SELECT u.tokenVersion FROM UserEntity u WHERE u.username = :username")
+    Optional<Integer> findTokenVersionByUsername(@Param("username") String username);
+    @Modifying
+    @Query("UPDATE UserEntity u SET u.tokenVersion = u.tokenVersion + 1 WHERE u.username = :username")
+    void incrementTokenVersionByUsername(@Param("username") String username);
 }
@@ -0,0 +1,91 @@
+package com.zhuk.hospital.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class AuthenticationCache implements MeterBinder {
+    public static final String CACHE_NAME = "authentication";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private final SecretKeySpec secretKey;
+    private final ThreadLocal<Mac> mac = ThreadLocal.withInitial(this::createMac);
+    private final Cache<CacheKey, Authentication> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public AuthenticationCache(AuthenticationCacheProperties authenticationCacheProperties) {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.secretKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(authenticationCacheProperties.getMaxSize())
+                .expireAfterWrite(authenticationCacheProperties.getTtl())
+                .recordStats()
+                .build();
+    }
+
+    public Authentication get(String username, String password) {
+        return cache.getIfPresent(getKey(username, password));
+    }
+
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    public void put(String username, String password, Authentication authentication, long expectedGeneration) {
+        CacheKey key = getKey(username, password);
+        cache.put(key, authentication);
+        if(generation.get() != expectedGeneration) {
+            cache.invalidate(key);
+        }
+    }
+
+    public void invalidate(String username) {
+        generation.incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> key.username().equals(username));
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+    private CacheKey getKey(String username, String password) {
+        Mac hmac = mac.get();
+        hmac.update(username.getBytes(StandardCharsets.UTF_8));
+        hmac.update((byte) 0);
+        byte[] digest = hmac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        return new CacheKey(username, Base64.getEncoder().encodeToString(digest));
+    }
+
+    private Mac createMac() {
+        try {
+            Mac hmac = Mac.getInstance(HMAC_ALGORITHM);
+            hmac.init(secretKey);
+            return hmac;
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private record CacheKey(String username, String digest) {
+    }
+}
@@ -0,0 +1,15 @@
+package com.zhuk.hospital.security;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "security.authentication-cache")
+public class AuthenticationCacheProperties {
+    private long maxSize = 10000;
+    private Duration ttl = Duration.ofMinutes(5);
+}
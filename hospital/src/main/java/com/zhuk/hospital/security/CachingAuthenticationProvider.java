@@ -0,0 +1,39 @@
+package com.zhuk.hospital.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+@RequiredArgsConstructor
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+    private final AuthenticationProvider delegate;
+    private final AuthenticationCache authenticationCache;
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if(!(authentication.getCredentials() instanceof String password)) {
+            return delegate.authenticate(authentication);
+        }
+        String username = authentication.getName();
+        Authentication cached = authenticationCache.get(username, password);
+        if(cached != null) {
+            UsernamePasswordAuthenticationToken result = UsernamePasswordAuthenticationToken.authenticated(
+                    cached.getPrincipal(), password, cached.getAuthorities());
+            result.setDetails(authentication.getDetails());
+            return result;
+        }
+        long generation = authenticationCache.getGeneration();
+        Authentication result = delegate.authenticate(authentication);
+        if(result != null && result.isAuthenticated()) {
+            authenticationCache.put(username, password, result, generation);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+}
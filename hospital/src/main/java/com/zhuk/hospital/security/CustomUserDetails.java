@@ -1,22 +1,71 @@
 package com.zhuk.hospital.security;
 
+import com.zhuk.hospital.entity.DepartmentEntity;
 import com.zhuk.hospital.entity.UserEntity;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.Instant;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class CustomUserDetails implements UserDetails {
     private final String username;
     private final String password;
     private final List<GrantedAuthority> grantedAuthorities;
+    private final long[] departmentIds;
+    private final int version;
+    private final Instant authTime;
 
     public CustomUserDetails(UserEntity user) {
         this.username = user.getUsername();
         this.password = user.getPassword();
         this.grantedAuthorities = List.of(new SimpleGrantedAuthority(user.getRole().name()));
+        this.departmentIds = user.getDepartments() == null ? new long[0] : toSortedArray(user.getDepartments().stream()
+                .map(DepartmentEntity::getId)
+                .toList());
+        this.version = user.getTokenVersion();
+        this.authTime = null;
+    }
+
+    public CustomUserDetails(TokenClaims claims) {
+        this.username = claims.getUsername();
+        this.password = null;
+        this.grantedAuthorities = List.of(new SimpleGrantedAuthority(claims.getRole()));
+        this.departmentIds = toSortedArray(claims.getDepartmentIds());
+        this.version = claims.getVersion();
+        this.authTime = Instant.ofEpochSecond(claims.getAuthTime());
+    }
+
+    public boolean isMemberOf(long departmentId) {
+        return Arrays.binarySearch(departmentIds, departmentId) >= 0;
+    }
+
+    public Set<Long> getDepartmentIds() {
+        return Arrays.stream(departmentIds)
+                .boxed()
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public Optional<Instant> getAuthTime() {
+        return Optional.ofNullable(authTime);
+    }
+
+    private static long[] toSortedArray(Collection<Long> ids) {
+        return ids.stream()
+                .mapToLong(Long::longValue)
+                .distinct()
+                .sorted()
+                .toArray();
     }
 
     @Override
@@ -22,10 +22,15 @@ public class CustomUserDetailsService implements UserDetailsService {
     private final UserRepository userRepository;
     private final MessageSourceWrapper messageSourceWrapper;
     private final ErrorCodeHelper errorCodeHelper;
+    private final UserDetailsCache userDetailsCache;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        Optional<UserEntity> userEntity = userRepository.findByUsername(username);
+        return userDetailsCache.get(username, this::loadCustomUserDetails);
+    }
+
+    private CustomUserDetails loadCustomUserDetails(String username) {
+        Optional<UserEntity> userEntity = userRepository.findWithDepartmentsByUsername(username);
         return userEntity.map(CustomUserDetails::new)
                 .orElseThrow(() -> new UserNotFoundException(
                         HttpStatus.NOT_FOUND,
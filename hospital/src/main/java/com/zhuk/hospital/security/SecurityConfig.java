@@ -17,6 +17,7 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 import java.util.Arrays;
 
@@ -29,22 +30,27 @@ public class SecurityConfig {
     }
 
     @Bean
-    SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception{
+    SecurityFilterChain securityFilterChain(HttpSecurity http, TokenService tokenService) throws Exception{
         String[] allAuthorities = Arrays.stream(UserRoleEnum.values()).map(UserRoleEnum::name).toArray(String[]::new);
         String[] adminAndDoctorAuthorities = {UserRoleEnum.ROLE_ADMIN.name(), UserRoleEnum.ROLE_DOCTOR.name()};
         http
                 .authorizeHttpRequests(
                         (authorize) -> authorize
+                                .requestMatchers(HttpMethod.POST, "/api/auth/login")
+                                .permitAll()
+                                .requestMatchers("/api/auth/**")
+                                .authenticated()
                                 .requestMatchers(HttpMethod.GET, "/api/hospital/**")
                                 .hasAnyAuthority(allAuthorities)
                                 .requestMatchers(HttpMethod.POST,"/api/hospital/tasks")
                                 .hasAnyAuthority(adminAndDoctorAuthorities)
                                 .requestMatchers(HttpMethod.DELETE,"/api/hospital/tasks/**")
                                 .hasAnyAuthority(adminAndDoctorAuthorities)
-                                .requestMatchers("/api/**")
+                                .requestMatchers("/api/**", "/actuator/**")
                                 .hasAuthority(UserRoleEnum.ROLE_ADMIN.name())
                                 .anyRequest().authenticated())
                 .csrf(AbstractHttpConfigurer::disable)
+                .addFilterBefore(new TokenAuthenticationFilter(tokenService), BasicAuthenticationFilter.class)
                 .httpBasic(Customizer.withDefaults())
                 .formLogin(Customizer.withDefaults());
         return http.build();
@@ -52,17 +58,19 @@ public class SecurityConfig {
 
     @Bean
     public AuthenticationProvider authenticationProvider(UserDetailsService userDetailsService,
-                                                         PasswordEncoder passwordEncoder) {
+                                                         PasswordEncoder passwordEncoder,
+                                                         AuthenticationCache authenticationCache) {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
         provider.setUserDetailsService(userDetailsService);
         provider.setPasswordEncoder(passwordEncoder);
-        return provider;
+        return new CachingAuthenticationProvider(provider, authenticationCache);
     }
 
     @Bean
     UserDetailsService userDetailsService(UserRepository userRepository,
                                           MessageSourceWrapper messageSourceWrapper,
-                                          ErrorCodeHelper errorCodeHelper) {
-        return new CustomUserDetailsService(userRepository, messageSourceWrapper, errorCodeHelper);
+                                          ErrorCodeHelper errorCodeHelper,
+                                          UserDetailsCache userDetailsCache) {
+        return new CustomUserDetailsService(userRepository, messageSourceWrapper, errorCodeHelper, userDetailsCache);
     }
 }
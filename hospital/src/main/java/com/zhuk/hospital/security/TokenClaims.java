@@ -0,0 +1,22 @@
+package com.zhuk.hospital.security;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+import java.util.List;
+
+@Value
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@Builder
+@Jacksonized
+public class TokenClaims {
+    String username;
+    String role;
+    List<Long> departmentIds;
+    int version;
+    long authTime;
+    long expiresAt;
+}
@@ -0,0 +1,18 @@
+package com.zhuk.hospital.security;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "security.token")
+public class TokenProperties {
+    private String secret;
+    private Duration ttl = Duration.ofMinutes(15);
+    private Duration maxLifetime = Duration.ofHours(12);
+    private Duration versionCacheTtl = Duration.ofSeconds(30);
+    private long versionCacheMaxSize = 10000;
+}
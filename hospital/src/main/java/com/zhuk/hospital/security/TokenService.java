@@ -0,0 +1,134 @@
+package com.zhuk.hospital.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zhuk.hospital.entity.DepartmentEntity;
+import com.zhuk.hospital.entity.UserEntity;
+import com.zhuk.hospital.repository.UserRepository;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+@Component
+public class TokenService {
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final char SEPARATOR = '.';
+    private static final String TEST_PROFILE = "test";
+    private final SecretKeySpec secretKey;
+    private final ThreadLocal<Mac> mac = ThreadLocal.withInitial(this::createMac);
+    private final Duration ttl;
+    private final Duration maxLifetime;
+    private final TokenVersionCache tokenVersionCache;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+
+    public TokenService(TokenProperties tokenProperties, TokenVersionCache tokenVersionCache,
+                        UserRepository userRepository, ObjectMapper objectMapper, Environment environment) {
+        this.secretKey = new SecretKeySpec(getSecret(tokenProperties.getSecret(), environment), HMAC_ALGORITHM);
+        this.ttl = tokenProperties.getTtl();
+        this.maxLifetime = tokenProperties.getMaxLifetime();
+        this.tokenVersionCache = tokenVersionCache;
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public String issue(UserEntity user, Instant authTime) {
+        List<Long> departmentIds = user.getDepartments() == null ? List.of() : user.getDepartments().stream()
+                .map(DepartmentEntity::getId)
+                .sorted()
+                .toList();
+        TokenClaims claims = TokenClaims.builder()
+                .username(user.getUsername())
+                .role(user.getRole().name())
+                .departmentIds(departmentIds)
+                .version(user.getTokenVersion())
+                .authTime(authTime.getEpochSecond())
+                .expiresAt(Instant.now().plusSeconds(getExpiresInSeconds(authTime)).getEpochSecond())
+                .build();
+        try {
+            String payload = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(objectMapper.writeValueAsBytes(claims));
+            return payload + SEPARATOR + sign(payload);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    public Optional<CustomUserDetails> verify(String token) {
+        int separatorIndex = token.lastIndexOf(SEPARATOR);
+        if(separatorIndex < 0) {
+            return Optional.empty();
+        }
+        String payload = token.substring(0, separatorIndex);
+        byte[] expectedSignature = sign(payload).getBytes(StandardCharsets.US_ASCII);
+        byte[] signature = token.substring(separatorIndex + 1).getBytes(StandardCharsets.US_ASCII);
+        if(!MessageDigest.isEqual(expectedSignature, signature)) {
+            return Optional.empty();
+        }
+        TokenClaims claims;
+        try {
+            claims = objectMapper.readValue(Base64.getUrlDecoder().decode(payload), TokenClaims.class);
+        } catch (IOException | IllegalArgumentException ex) {
+            return Optional.empty();
+        }
+        if(claims.getExpiresAt() <= Instant.now().getEpochSecond()) {
+            return Optional.empty();
+        }
+        return tokenVersionCache.get(claims.getUsername())
+                .filter(version -> version == claims.getVersion())
+                .map(version -> new CustomUserDetails(claims));
+    }
+
+    public long getExpiresInSeconds(Instant authTime) {
+        return Math.min(ttl.toSeconds(), Duration.between(Instant.now(), authTime.plus(maxLifetime)).toSeconds());
+    }
+
+    public boolean isRefreshable(Instant authTime) {
+        return authTime.plus(maxLifetime).isAfter(Instant.now());
+    }
+
+    public void revoke(String username) {
+        userRepository.incrementTokenVersionByUsername(username);
+    }
+
+    private String sign(String payload) {
+        byte[] signature = mac.get().doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+    }
+
+    private Mac createMac() {
+        try {
+            Mac hmac = Mac.getInstance(HMAC_ALGORITHM);
+            hmac.init(secretKey);
+            return hmac;
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static byte[] getSecret(String secret, Environment environment) {
+        if(StringUtils.hasText(secret)) {
+            return secret.getBytes(StandardCharsets.UTF_8);
+        }
+        // a random secret invalidates tokens on restart and differs between instances
+        if(!environment.acceptsProfiles(Profiles.of(TEST_PROFILE))) {
+            throw new IllegalStateException("security.token.secret must be set outside the test profile");
+        }
+        byte[] randomSecret = new byte[32];
+        new SecureRandom().nextBytes(randomSecret);
+        return randomSecret;
+    }
+}
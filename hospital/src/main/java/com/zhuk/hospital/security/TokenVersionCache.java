@@ -0,0 +1,32 @@
+package com.zhuk.hospital.security;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.zhuk.hospital.repository.UserRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+@Component
+public class TokenVersionCache {
+    private final LoadingCache<String, Optional<Integer>> cache;
+
+    public TokenVersionCache(TokenProperties tokenProperties, UserRepository userRepository) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tokenProperties.getVersionCacheMaxSize())
+                .expireAfterWrite(tokenProperties.getVersionCacheTtl())
+                .build(userRepository::findTokenVersionByUsername);
+    }
+
+    public Optional<Integer> get(String username) {
+        return cache.get(username);
+    }
+
+    public void invalidate(String username) {
+        cache.invalidate(username);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,77 @@
+package com.zhuk.hospital.security;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+@Component
+@RequiredArgsConstructor
+public class UserCacheInvalidationListener {
+    private final UserDetailsCacheProperties userDetailsCacheProperties;
+    private final JdbcConnectionDetails jdbcConnectionDetails;
+    private final UserCacheInvalidator userCacheInvalidator;
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    @PostConstruct
+    public void start() {
+        if(!userDetailsCacheProperties.isListenerEnabled()) {
+            return;
+        }
+        running = true;
+        listenerThread = new Thread(this::listen, "user-cache-invalidation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if(listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    private void listen() {
+        int pollTimeout = (int) userDetailsCacheProperties.getListenerPollTimeout().toMillis();
+        while(running) {
+            try(Connection connection = DriverManager.getConnection(jdbcConnectionDetails.getJdbcUrl(),
+                    jdbcConnectionDetails.getUsername(), jdbcConnectionDetails.getPassword())) {
+                try(Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + UserCacheInvalidator.CHANNEL);
+                }
+                userCacheInvalidator.evictAll();
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while(running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeout);
+                    if(notifications == null) {
+                        continue;
+                    }
+                    for(PGNotification notification : notifications) {
+                        userCacheInvalidator.evict(notification.getParameter());
+                    }
+                }
+            } catch (SQLException ex) {
+                sleepBeforeReconnect();
+            }
+        }
+    }
+
+    private void sleepBeforeReconnect() {
+        try {
+            Thread.sleep(userDetailsCacheProperties.getListenerReconnectDelay().toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.zhuk.hospital.security;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "security.user-details-cache")
+public class UserDetailsCacheProperties {
+    private long maxSize = 10000;
+    private Duration ttl = Duration.ofMinutes(10);
+    private boolean listenerEnabled = true;
+    private Duration listenerPollTimeout = Duration.ofSeconds(5);
+    private Duration listenerReconnectDelay = Duration.ofSeconds(5);
+}
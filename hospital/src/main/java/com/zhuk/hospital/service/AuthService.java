@@ -0,0 +1,97 @@
+package com.zhuk.hospital.service;
+
+import com.zhuk.hospital.dto.CredentialsDto;
+import com.zhuk.hospital.dto.TokenDto;
+import com.zhuk.hospital.entity.UserEntity;
+import com.zhuk.hospital.enums.ApiMessageEnum;
+import com.zhuk.hospital.enums.ErrorCodeEnum;
+import com.zhuk.hospital.exception.user.UserBadCredentialsException;
+import com.zhuk.hospital.exception.user.UserSessionExpiredException;
+import com.zhuk.hospital.exception.user.UserUnknownException;
+import com.zhuk.hospital.repository.UserRepository;
+import com.zhuk.hospital.security.CustomUserDetails;
+import com.zhuk.hospital.security.TokenService;
+import com.zhuk.hospital.security.UserCacheInvalidator;
+import com.zhuk.hospital.utils.ErrorCodeHelper;
+import com.zhuk.hospital.utils.MessageSourceWrapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Service
+@RequiredArgsConstructor
+public class AuthService {
+    private static final String TOKEN_TYPE = "Bearer";
+    private final AuthenticationProvider authenticationProvider;
+    private final TokenService tokenService;
+    private final UserCacheInvalidator userCacheInvalidator;
+    private final UserRepository userRepository;
+    private final MessageSourceWrapper messageSourceWrapper;
+    private final ErrorCodeHelper errorCodeHelper;
+
+    @Transactional(readOnly = true)
+    public TokenDto login(CredentialsDto credentials) {
+        String password = credentials.getPassword() == null ? "" : String.valueOf(credentials.getPassword());
+        try {
+            authenticationProvider.authenticate(
+                    UsernamePasswordAuthenticationToken.unauthenticated(credentials.getUsername(), password));
+        } catch (AuthenticationException ex) {
+            throw new UserBadCredentialsException(HttpStatus.UNAUTHORIZED,
+                    messageSourceWrapper.getMessageCode(ApiMessageEnum.USER_BAD_CREDENTIALS),
+                    errorCodeHelper.getCode(ErrorCodeEnum.USER_BAD_CREDENTIALS_CODE));
+        }
+        return issueToken(credentials.getUsername(), Instant.now());
+    }
+
+    @Transactional(readOnly = true)
+    public TokenDto refresh() {
+        Authentication authentication = getCurrentAuthentication();
+        // a bearer token keeps the time of its password login, a basic request is a fresh login
+        Instant authTime = authentication.getPrincipal() instanceof CustomUserDetails userDetails
+                ? userDetails.getAuthTime().orElseGet(Instant::now)
+                : Instant.now();
+        if(!tokenService.isRefreshable(authTime)) {
+            throw new UserSessionExpiredException(HttpStatus.UNAUTHORIZED,
+                    messageSourceWrapper.getMessageCode(ApiMessageEnum.USER_SESSION_EXPIRED),
+                    errorCodeHelper.getCode(ErrorCodeEnum.USER_SESSION_EXPIRED_CODE));
+        }
+        return issueToken(authentication.getName(), authTime);
+    }
+
+    @Transactional
+    public void revoke() {
+        String username = getCurrentAuthentication().getName();
+        tokenService.revoke(username);
+        userCacheInvalidator.invalidate(username);
+    }
+
+    private TokenDto issueToken(String username, Instant authTime) {
+        UserEntity user = userRepository.findWithDepartmentsByUsername(username).orElseThrow(
+                () -> new UserBadCredentialsException(HttpStatus.UNAUTHORIZED,
+                        messageSourceWrapper.getMessageCode(ApiMessageEnum.USER_BAD_CREDENTIALS),
+                        errorCodeHelper.getCode(ErrorCodeEnum.USER_BAD_CREDENTIALS_CODE)));
+        return TokenDto.builder()
+                .accessToken(tokenService.issue(user, authTime))
+                .tokenType(TOKEN_TYPE)
+                .expiresIn(tokenService.getExpiresInSeconds(authTime))
+                .build();
+    }
+
+    private Authentication getCurrentAuthentication() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if(authentication == null || !authentication.isAuthenticated()) {
+            throw new UserUnknownException(HttpStatus.FORBIDDEN,
+                    messageSourceWrapper.getMessageCode(ApiMessageEnum.USER_UNKNOWN_EXCEPTION),
+                    errorCodeHelper.getCode(ErrorCodeEnum.USER_UNKNOWN_EXCEPTION_CODE));
+        }
+        return authentication;
+    }
+}
@@ -30,15 +30,26 @@ public class DepartmentService {
     private final DepartmentRepository departmentRepository;
     private final UserService userService;
     private final DepartmentMapper departmentMapper;
+    private final PrescriptionScheduleService prescriptionScheduleService;
 
+    @Transactional(readOnly = true)
     public List<DepartmentDto> findAll() {
-        return departmentRepository.findAll()
+        return prescriptionScheduleService.addOccurrences(departmentRepository.findAll()
                 .stream().map(departmentMapper::map)
-                .toList();
+                .toList());
     }
 
+    public List<Long> findAllIds() {
+        return departmentRepository.findAllIds();
+    }
+
+    public List<Long> findAllIdsByUsername(String username) {
+        return departmentRepository.findAllIdsByUsername(username);
+    }
+
+    @Transactional(readOnly = true)
     public DepartmentDto findById(Long id) {
-        return departmentMapper.map(getEntityByIdOrThrowException(id));
+        return addOccurrences(departmentMapper.map(getEntityByIdOrThrowException(id)));
     }
 
     public DepartmentDto save(NewDepartmentDto newDepartmentDto) {
@@ -72,10 +83,10 @@ public class DepartmentService {
                             errorCodeHelper.getCode(ErrorCodeEnum.DEPARTMENT_ALREADY_EXISTS));
                 });
         departmentRepository.updateById(dto.getName(), dto.getDescription(), id);
-        return departmentMapper.map(entity.toBuilder()
+        return addOccurrences(departmentMapper.map(entity.toBuilder()
                 .name(dto.getName())
                 .description(dto.getDescription())
-                .build());
+                .build()));
     }
 
     @Transactional
@@ -103,6 +114,10 @@ public class DepartmentService {
                 errorCodeHelper.getCode(ErrorCodeEnum.DEPARTMENT_NOT_FOUND_CODE)));
     }
 
+    private DepartmentDto addOccurrences(DepartmentDto department) {
+        return prescriptionScheduleService.addOccurrences(List.of(department)).get(0);
+    }
+
     private Optional<DepartmentEntity> getOptionalEntityById(Long id) {
         return departmentRepository.findById(id);
     }
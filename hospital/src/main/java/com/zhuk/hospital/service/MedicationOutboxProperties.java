@@ -0,0 +1,20 @@
+package com.zhuk.hospital.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "medication.outbox")
+public class MedicationOutboxProperties {
+    private int batchSize = 100;
+    private Duration coalesceWindow = Duration.ofMillis(500);
+    private int coalesceMaxEvents = 50;
+    private int maxAttempts = 10;
+    private Duration lease = Duration.ofSeconds(30);
+    private Duration initialBackoff = Duration.ofSeconds(1);
+    private Duration maxBackoff = Duration.ofMinutes(5);
+}
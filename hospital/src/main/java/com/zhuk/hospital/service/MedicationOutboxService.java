@@ -0,0 +1,238 @@
+package com.zhuk.hospital.service;
+
+import com.zhuk.hospital.client.MedicationRestClient;
+import com.zhuk.hospital.dto.MedicationQuantityChangeDto;
+import com.zhuk.hospital.exception.BaseApiException;
+import com.zhuk.hospital.exception.medication.MedicationUnauthorizedException;
+import com.zhuk.hospital.exception.medication.MedicationUnavailableException;
+import com.zhuk.hospital.exception.medication.MedicationUnknownException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.Builder;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+@Component
+@RequiredArgsConstructor
+public class MedicationOutboxService {
+    public static final String DELIVERED_EVENTS_METRIC = "medication.outbox.events.delivered";
+    public static final String SENT_CHANGES_METRIC = "medication.outbox.changes.sent";
+    public static final String COALESCING_RATIO_METRIC = "medication.outbox.coalescing.ratio";
+    public static final String REJECTED_EVENTS_METRIC = "medication.outbox.events.rejected";
+    static final long RELAY_LOCK_KEY = 0x6f7574626f78L;
+    private static final int MAX_ERROR_LENGTH = 255;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MedicationRestClient medicationRestClient;
+    private final MedicationOutboxProperties medicationOutboxProperties;
+    private final MeterRegistry meterRegistry;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(Long medicationId, int quantity) {
+        jdbcTemplate.update("INSERT INTO medication_outbox (medication_id, quantity) VALUES (?, ?)",
+                medicationId, quantity);
+    }
+
+    @Scheduled(fixedDelayString = "${medication.outbox.relay-delay}")
+    public void relay() {
+        relay(medicationOutboxProperties.getCoalesceWindow());
+    }
+
+    @PreDestroy
+    public void flush() {
+        relay(Duration.ZERO);
+    }
+
+    private void relay(Duration coalesceWindow) {
+        Set<Long> blockedMedicationIds = new HashSet<>();
+        for (String batchKey : claimBatches(coalesceWindow)) {
+            List<MedicationQuantityChangeDto> changes = findChangesByBatchKey(batchKey);
+            if(changes.stream().anyMatch(change -> blockedMedicationIds.contains(change.getMedicationId()))) {
+                continue;
+            }
+            if(!deliver(batchKey, changes)) {
+                changes.forEach(change -> blockedMedicationIds.add(change.getMedicationId()));
+            }
+        }
+    }
+
+    private List<String> claimBatches(Duration coalesceWindow) {
+        return transactionTemplate.execute(status -> {
+            if(!tryLockRelay()) {
+                return List.of();
+            }
+            List<String> batchKeys = new ArrayList<>(findExpiredBatchKeys());
+            String newBatchKey = UUID.randomUUID().toString();
+            if(claimHeads(newBatchKey, findReadyHeads(coalesceWindow)) > 0) {
+                batchKeys.add(newBatchKey);
+            }
+            lease(batchKeys);
+            return batchKeys;
+        });
+    }
+
+    boolean tryLockRelay() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)",
+                Boolean.class, RELAY_LOCK_KEY));
+    }
+
+    List<String> findExpiredBatchKeys() {
+        return jdbcTemplate.queryForList("SELECT batch_key FROM medication_outbox " +
+                "WHERE batch_key IS NOT NULL AND next_attempt_at <= now() GROUP BY batch_key ORDER BY min(id)",
+                String.class);
+    }
+
+    // a medication is ready only while its oldest event is unclaimed, so deliveries never overtake each other
+    List<OutboxHead> findReadyHeads(Duration coalesceWindow) {
+        return jdbcTemplate.query("SELECT id, medication_id, quantity FROM (" +
+                        "SELECT DISTINCT ON (medication_id) id, medication_id, quantity, batch_key, next_attempt_at, " +
+                        "created_at FROM medication_outbox ORDER BY medication_id, id) heads " +
+                        "WHERE batch_key IS NULL AND next_attempt_at <= now() " +
+                        "AND (quantity < 0 OR created_at <= now() - ? * interval '1 millisecond' " +
+                        "OR (SELECT count(*) FROM medication_outbox pending " +
+                        "WHERE pending.medication_id = heads.medication_id) >= ?) " +
+                        "ORDER BY id LIMIT ?",
+                (resultSet, rowNum) -> OutboxHead.builder()
+                        .id(resultSet.getLong("id"))
+                        .medicationId(resultSet.getLong("medication_id"))
+                        .quantity(resultSet.getInt("quantity"))
+                        .build(),
+                coalesceWindow.toMillis(), medicationOutboxProperties.getCoalesceMaxEvents(),
+                medicationOutboxProperties.getBatchSize());
+    }
+
+    int claimHeads(String batchKey, List<OutboxHead> heads) {
+        List<Object[]> decrements = heads.stream()
+                .filter(OutboxHead::isDecrement)
+                .map(head -> new Object[] {batchKey, head.getId()})
+                .toList();
+        List<Object[]> refunds = heads.stream()
+                .filter(head -> !head.isDecrement())
+                .map(head -> new Object[] {batchKey, head.getMedicationId()})
+                .toList();
+        // a decrement is claimed alone so it is never netted against refunds
+        int claimed = sum(jdbcTemplate.batchUpdate("UPDATE medication_outbox SET batch_key = ? WHERE id = ?",
+                decrements));
+        // refunds are netted only up to the first decrement queued for the same medication
+        claimed += sum(jdbcTemplate.batchUpdate("UPDATE medication_outbox SET batch_key = ? " +
+                "WHERE medication_id = ? AND batch_key IS NULL AND quantity >= 0 " +
+                "AND NOT EXISTS (SELECT 1 FROM medication_outbox earlier " +
+                "WHERE earlier.medication_id = medication_outbox.medication_id " +
+                "AND earlier.id < medication_outbox.id AND earlier.quantity < 0)", refunds));
+        return claimed;
+    }
+
+    void lease(List<String> batchKeys) {
+        jdbcTemplate.batchUpdate("UPDATE medication_outbox " +
+                        "SET next_attempt_at = now() + ? * interval '1 millisecond' WHERE batch_key = ?",
+                batchKeys.stream()
+                        .map(batchKey -> new Object[] {medicationOutboxProperties.getLease().toMillis(), batchKey})
+                        .toList());
+    }
+
+    private int sum(int[] counts) {
+        return Arrays.stream(counts).sum();
+    }
+
+    private List<MedicationQuantityChangeDto> findChangesByBatchKey(String batchKey) {
+        return jdbcTemplate.query("SELECT medication_id, sum(quantity) AS quantity FROM medication_outbox " +
+                        "WHERE batch_key = ? GROUP BY medication_id ORDER BY medication_id",
+                (resultSet, rowNum) -> MedicationQuantityChangeDto.builder()
+                        .medicationId(resultSet.getLong("medication_id"))
+                        .quantity(resultSet.getInt("quantity"))
+                        .build(),
+                batchKey);
+    }
+
+    private boolean deliver(String batchKey, List<MedicationQuantityChangeDto> changes) {
+        List<MedicationQuantityChangeDto> nonZeroChanges = changes.stream()
+                .filter(change -> change.getQuantity() != 0)
+                .toList();
+        Integer events = jdbcTemplate.queryForObject("SELECT count(*) FROM medication_outbox WHERE batch_key = ?",
+                Integer.class, batchKey);
+        try {
+            if(!nonZeroChanges.isEmpty()) {
+                medicationRestClient.updateQuantities(nonZeroChanges, batchKey);
+            }
+        } catch (MedicationUnknownException | MedicationUnavailableException | MedicationUnauthorizedException ex) {
+            reschedule(batchKey, ex);
+            return false;
+        } catch (BaseApiException ex) {
+            // the whole batch was rejected without effect, so each medication can be retried on its own
+            if(nonZeroChanges.size() > 1) {
+                jdbcTemplate.update("UPDATE medication_outbox SET batch_key = md5(batch_key || ':' || medication_id), " +
+                        "next_attempt_at = now() WHERE batch_key = ?", batchKey);
+                return false;
+            }
+            // retrying a rejected change would only hold back the events queued behind it
+            reject("batch_key = ?", batchKey, ex);
+            return true;
+        }
+        jdbcTemplate.update("DELETE FROM medication_outbox WHERE batch_key = ?", batchKey);
+        int deliveredEvents = events == null ? 0 : events;
+        meterRegistry.counter(DELIVERED_EVENTS_METRIC).increment(deliveredEvents);
+        meterRegistry.counter(SENT_CHANGES_METRIC).increment(nonZeroChanges.size());
+        if(!nonZeroChanges.isEmpty()) {
+            meterRegistry.summary(COALESCING_RATIO_METRIC).record((double) deliveredEvents / nonZeroChanges.size());
+        }
+        return true;
+    }
+
+    private void reschedule(String batchKey, BaseApiException ex) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE medication_outbox SET attempts = attempts + 1, last_error = ?, " +
+                            "next_attempt_at = now() + least(? * power(2, attempts), ?) * interval '1 millisecond' " +
+                            "WHERE batch_key = ?",
+                    getError(ex), medicationOutboxProperties.getInitialBackoff().toMillis(),
+                    medicationOutboxProperties.getMaxBackoff().toMillis(), batchKey);
+            moveToDeadLetters("batch_key = ? AND attempts >= ?", batchKey, medicationOutboxProperties.getMaxAttempts());
+        });
+    }
+
+    private void reject(String condition, Object argument, BaseApiException ex) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE medication_outbox SET attempts = attempts + 1, last_error = ? WHERE " + condition,
+                    getError(ex), argument);
+            meterRegistry.counter(REJECTED_EVENTS_METRIC).increment(moveToDeadLetters(condition, argument));
+        });
+    }
+
+    private int moveToDeadLetters(String condition, Object... arguments) {
+        return jdbcTemplate.update("WITH dead AS (DELETE FROM medication_outbox WHERE " + condition + " " +
+                        "RETURNING id, medication_id, quantity, attempts, last_error, created_at) " +
+                        "INSERT INTO medication_outbox_dead_letters (id, medication_id, quantity, attempts, " +
+                        "last_error, created_at) SELECT * FROM dead",
+                arguments);
+    }
+
+    private String getError(BaseApiException ex) {
+        String error = ex.getClass().getSimpleName() + ": " + ex.getMessage();
+        return error.substring(0, Math.min(error.length(), MAX_ERROR_LENGTH));
+    }
+
+    @Value
+    @Builder
+    static class OutboxHead {
+        Long id;
+        Long medicationId;
+        int quantity;
+
+        boolean isDecrement() {
+            return quantity < 0;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.zhuk.hospital.service;
+
+import com.zhuk.hospital.dto.DepartmentDto;
+import com.zhuk.hospital.dto.NewTaskDto;
+import com.zhuk.hospital.dto.TaskDto;
+import com.zhuk.hospital.entity.DepartmentEntity;
+import com.zhuk.hospital.entity.PrescriptionScheduleEntity;
+import com.zhuk.hospital.entity.PrescriptionScheduleExceptionEntity;
+import com.zhuk.hospital.entity.TaskEntity;
+import com.zhuk.hospital.enums.ScheduleExceptionTypeEnum;
+import com.zhuk.hospital.mapper.TaskMapper;
+import com.zhuk.hospital.repository.PrescriptionScheduleExceptionRepository;
+import com.zhuk.hospital.repository.PrescriptionScheduleRepository;
+import com.zhuk.hospital.utils.TaskCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class PrescriptionScheduleService {
+    private final PrescriptionScheduleRepository prescriptionScheduleRepository;
+    private final PrescriptionScheduleExceptionRepository prescriptionScheduleExceptionRepository;
+    private final TaskMapper taskMapper;
+
+    @Transactional
+    public List<TaskEntity> save(NewTaskDto dto, DepartmentEntity departmentEntity) {
+        PrescriptionScheduleEntity schedule = prescriptionScheduleRepository.save(
+                PrescriptionScheduleEntity.builder()
+                        .patient(dto.getPatient())
+                        .medicationId(dto.getMedicationId())
+                        .startDay(dto.getStartDay())
+                        .endDay(dto.getStartDay().plusDays(dto.getAmountOfDays()))
+                        .timeOfIssuing(dto.getTimeOfIssuing().stream()
+                                .sorted()
+                                .distinct()
+                                .toList())
+                        .department(departmentEntity)
+                        .build());
+        return getOccurrences(schedule, schedule.getStartDay().atStartOfDay(),
+                schedule.getEndDay().atStartOfDay(), null).toList();
+    }
+
+    public List<TaskEntity> findOccurrences(Collection<Long> departmentIds, LocalDateTime from, LocalDateTime to,
+                                            TaskCursor cursor, int limit) {
+        List<PrescriptionScheduleEntity> schedules = prescriptionScheduleRepository
+                .findAllByDepartmentIdsAndPeriod(departmentIds, from.toLocalDate(), to.toLocalDate());
+        if(schedules.isEmpty()) {
+            return List.of();
+        }
+        Set<UUID> cancelledOccurrenceIds = getOccurrenceIds(prescriptionScheduleExceptionRepository
+                .findAllByScheduleIdsAndPeriod(getIds(schedules), from, to));
+        return schedules.stream()
+                .flatMap(schedule -> getOccurrences(schedule, from, to, cursor)
+                        .filter(occurrence -> !cancelledOccurrenceIds.contains(occurrence.getId()))
+                        .limit(limit))
+                .toList();
+    }
+
+    // only today's occurrences are listed, so the payload does not grow with the length of the schedules
+    public List<DepartmentDto> addOccurrences(List<DepartmentDto> departments) {
+        if(departments.isEmpty()) {
+            return departments;
+        }
+        Set<Long> departmentIds = departments.stream()
+                .map(DepartmentDto::getId)
+                .collect(Collectors.toSet());
+        LocalDateTime from = LocalDate.now().atStartOfDay();
+        Map<Long, List<TaskDto>> occurrences = findOccurrences(departmentIds, from, from.plusDays(1), null,
+                        Integer.MAX_VALUE).stream()
+                .sorted(Comparator.comparing(TaskEntity::getDateTimeOfIssue))
+                .collect(Collectors.groupingBy(occurrence -> occurrence.getDepartment().getId(),
+                        Collectors.mapping(taskMapper::map, Collectors.toList())));
+        return departments.stream()
+                .map(department -> occurrences.containsKey(department.getId())
+                        ? department.toBuilder()
+                                .tasks(Stream.concat(department.getTasks() == null ? Stream.empty()
+                                                : department.getTasks().stream(),
+                                        occurrences.get(department.getId()).stream())
+                                        .toList())
+                                .build()
+                        : department)
+                .toList();
+    }
+
+    public Optional<TaskEntity> findOccurrenceById(UUID id) {
+        LocalDateTime dateTimeOfIssue;
+        try {
+            dateTimeOfIssue = LocalDateTime.ofEpochSecond(id.getLeastSignificantBits(), 0, ZoneOffset.UTC);
+        } catch (DateTimeException ex) {
+            return Optional.empty();
+        }
+        Long scheduleId = id.getMostSignificantBits();
+        return prescriptionScheduleRepository.findById(scheduleId)
+                .filter(schedule -> isOccurrence(schedule, dateTimeOfIssue))
+                .filter(schedule -> !prescriptionScheduleExceptionRepository
+                        .existsByScheduleIdAndDateTimeOfIssue(scheduleId, dateTimeOfIssue))
+                .map(schedule -> getOccurrence(schedule, dateTimeOfIssue));
+    }
+
+    @Transactional
+    public void cancelOccurrence(TaskEntity occurrence) {
+        prescriptionScheduleExceptionRepository.save(PrescriptionScheduleExceptionEntity.builder()
+                .scheduleId(occurrence.getId().getMostSignificantBits())
+                .dateTimeOfIssue(occurrence.getDateTimeOfIssue())
+                .type(ScheduleExceptionTypeEnum.CANCELLED)
+                .build());
+    }
+
+    private Stream<TaskEntity> getOccurrences(PrescriptionScheduleEntity schedule, LocalDateTime from,
+                                              LocalDateTime to, TaskCursor cursor) {
+        LocalDateTime lowerBound = cursor == null || cursor.getDateTimeOfIssue().isBefore(from)
+                ? from : cursor.getDateTimeOfIssue();
+        LocalDate firstDay = lowerBound.toLocalDate().isAfter(schedule.getStartDay())
+                ? lowerBound.toLocalDate() : schedule.getStartDay();
+        LocalDate endDay = to.toLocalDate().plusDays(1).isBefore(schedule.getEndDay())
+                ? to.toLocalDate().plusDays(1) : schedule.getEndDay();
+        if(!firstDay.isBefore(endDay)) {
+            return Stream.empty();
+        }
+        return firstDay.datesUntil(endDay)
+                .flatMap(day -> schedule.getTimeOfIssuing().stream()
+                        .map(time -> LocalDateTime.of(day, time)))
+                .filter(dateTimeOfIssue -> !dateTimeOfIssue.isBefore(from) && dateTimeOfIssue.isBefore(to))
+                .map(dateTimeOfIssue -> getOccurrence(schedule, dateTimeOfIssue))
+                .filter(occurrence -> cursor == null
+                        || cursor.isBefore(occurrence.getDateTimeOfIssue(), occurrence.getId()));
+    }
+
+    private boolean isOccurrence(PrescriptionScheduleEntity schedule, LocalDateTime dateTimeOfIssue) {
+        LocalDate day = dateTimeOfIssue.toLocalDate();
+        LocalTime time = dateTimeOfIssue.toLocalTime();
+        return !day.isBefore(schedule.getStartDay()) && day.isBefore(schedule.getEndDay())
+                && schedule.getTimeOfIssuing().contains(time);
+    }
+
+    private TaskEntity getOccurrence(PrescriptionScheduleEntity schedule, LocalDateTime dateTimeOfIssue) {
+        return TaskEntity.builder()
+                .id(getOccurrenceId(schedule.getId(), dateTimeOfIssue))
+                .patient(schedule.getPatient())
+                .medicationId(schedule.getMedicationId())
+                .dateTimeOfIssue(dateTimeOfIssue)
+                .department(schedule.getDepartment())
+                .build();
+    }
+
+    private List<Long> getIds(List<PrescriptionScheduleEntity> schedules) {
+        return schedules.stream()
+                .map(PrescriptionScheduleEntity::getId)
+                .toList();
+    }
+
+    private Set<UUID> getOccurrenceIds(List<PrescriptionScheduleExceptionEntity> exceptions) {
+        return exceptions.stream()
+                .map(exception -> getOccurrenceId(exception.getScheduleId(), exception.getDateTimeOfIssue()))
+                .collect(Collectors.toSet());
+    }
+
+    private UUID getOccurrenceId(Long scheduleId, LocalDateTime dateTimeOfIssue) {
+        return new UUID(scheduleId, dateTimeOfIssue.toEpochSecond(ZoneOffset.UTC));
+    }
+}
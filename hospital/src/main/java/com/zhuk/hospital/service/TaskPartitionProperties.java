@@ -0,0 +1,15 @@
+package com.zhuk.hospital.service;
+
+import com.zhuk.hospital.enums.PartitionRetentionActionEnum;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "tasks.partitions")
+public class TaskPartitionProperties {
+    private int monthsAhead;
+    private int retentionMonths;
+    private PartitionRetentionActionEnum retentionAction;
+}
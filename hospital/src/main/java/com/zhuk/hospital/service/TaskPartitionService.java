@@ -0,0 +1,90 @@
+package com.zhuk.hospital.service;
+
+import com.zhuk.hospital.enums.PartitionRetentionActionEnum;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Component
+@RequiredArgsConstructor
+public class TaskPartitionService {
+    private static final String DEFAULT_PARTITION = "tasks_default";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final Pattern PARTITION_NAME = Pattern.compile("tasks_(\\d{4})_(\\d{2})");
+    private static final long MAINTENANCE_LOCK_KEY = 0x7461736b73L;
+    private final JdbcTemplate jdbcTemplate;
+    private final TaskPartitionProperties taskPartitionProperties;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${tasks.partitions.cron}")
+    @Transactional
+    public void maintainPartitions() {
+        Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)",
+                Boolean.class, MAINTENANCE_LOCK_KEY);
+        if(!Boolean.TRUE.equals(locked)) {
+            return;
+        }
+        YearMonth currentMonth = YearMonth.now();
+        for (int i = 0; i <= taskPartitionProperties.getMonthsAhead(); i++) {
+            createPartitionIfMissing(currentMonth.plusMonths(i));
+        }
+        applyRetention(currentMonth.minusMonths(taskPartitionProperties.getRetentionMonths()));
+    }
+
+    public List<String> findAttachedPartitions() {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = 'tasks'::regclass ORDER BY c.relname", String.class);
+    }
+
+    @Transactional
+    public void createPartitionIfMissing(YearMonth month) {
+        String partitionName = getPartitionName(month);
+        Boolean missing = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NULL",
+                Boolean.class, partitionName);
+        if(!Boolean.TRUE.equals(missing)) {
+            return;
+        }
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        jdbcTemplate.execute("CREATE TABLE " + partitionName + " (LIKE tasks INCLUDING DEFAULTS)");
+        // rows that landed in the default partition before this month existed must move, or ATTACH fails
+        jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION +
+                " WHERE date_time_of_issue >= ? AND date_time_of_issue < ? RETURNING *) " +
+                "INSERT INTO " + partitionName + " SELECT * FROM moved", from, to);
+        jdbcTemplate.execute("ALTER TABLE tasks ATTACH PARTITION " + partitionName +
+                " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+    }
+
+    private void applyRetention(YearMonth oldestKeptMonth) {
+        for (String partitionName : findAttachedPartitions()) {
+            Matcher matcher = PARTITION_NAME.matcher(partitionName);
+            if(!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if(!month.isBefore(oldestKeptMonth)) {
+                continue;
+            }
+            jdbcTemplate.execute("ALTER TABLE tasks DETACH PARTITION " + partitionName);
+            if(taskPartitionProperties.getRetentionAction() == PartitionRetentionActionEnum.DROP) {
+                jdbcTemplate.execute("DROP TABLE " + partitionName);
+            }
+        }
+    }
+
+    private String getPartitionName(YearMonth month) {
+        return "tasks_" + month.format(PARTITION_SUFFIX);
+    }
+}
@@ -1,15 +1,16 @@
 package com.zhuk.hospital.service;
 
-import com.zhuk.hospital.client.MedicationRestClient;
-import com.zhuk.hospital.dto.DepartmentDto;
+import com.zhuk.hospital.client.MedicationMetadataCache;
+import com.zhuk.hospital.dto.MedicationDto;
 import com.zhuk.hospital.dto.NewTaskDto;
 import com.zhuk.hospital.dto.TaskDto;
-import com.zhuk.hospital.dto.UserDto;
+import com.zhuk.hospital.dto.TaskPageDto;
 import com.zhuk.hospital.entity.DepartmentEntity;
 import com.zhuk.hospital.entity.TaskEntity;
 import com.zhuk.hospital.enums.ApiMessageEnum;
 import com.zhuk.hospital.enums.ErrorCodeEnum;
 import com.zhuk.hospital.enums.UserRoleEnum;
+import com.zhuk.hospital.exception.BaseApiException;
 import com.zhuk.hospital.exception.task.TaskNotAllowedException;
 import com.zhuk.hospital.exception.task.TaskNotFoundException;
 import com.zhuk.hospital.exception.task.TaskOutdatedException;
@@ -17,51 +18,162 @@ import com.zhuk.hospital.exception.user.UserUnknownException;
 import com.zhuk.hospital.mapper.TaskMapper;
 import com.zhuk.hospital.repository.TaskRepository;
 import com.zhuk.hospital.security.CustomUserDetails;
+import com.zhuk.hospital.security.TokenVersionCache;
 import com.zhuk.hospital.utils.ErrorCodeHelper;
 import com.zhuk.hospital.utils.MessageSourceWrapper;
+import com.zhuk.hospital.utils.TaskCursor;
+import com.zhuk.hospital.utils.TaskCursorHelper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.stream.IntStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component
 @RequiredArgsConstructor
 public class TaskService {
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final String DEPARTMENT_IDS_ATTRIBUTE = TaskService.class.getName() + ".departmentIds";
+    private static final Comparator<TaskEntity> TASK_ORDER = Comparator
+            .comparing(TaskEntity::getDateTimeOfIssue)
+            .thenComparing(TaskEntity::getId, TaskCursor::compareIds);
     private final MessageSourceWrapper messageSourceWrapper;
     private final ErrorCodeHelper errorCodeHelper;
     private final TaskRepository taskRepository;
     private final TaskMapper taskMapper;
-    private final UserService userService;
     private final DepartmentService departmentService;
-    private final MedicationRestClient medicationRestClient;
+    private final MedicationOutboxService medicationOutboxService;
+    private final TaskCursorHelper taskCursorHelper;
+    private final PrescriptionScheduleService prescriptionScheduleService;
+    private final MedicationMetadataCache medicationMetadataCache;
+    private final TokenVersionCache tokenVersionCache;
 
-    public List<TaskDto> findAll() {
-        List<DepartmentDto> departments = getDepartmentsListForCurrentUser();
-        return departments.stream()
-                .flatMap(departmentDto -> departmentDto.getTasks().stream())
-                .filter(task -> task.getDateTimeOfIssue().toLocalDate().equals(LocalDate.now()))
-               .toList();
+    public TaskPageDto findAll(LocalDateTime from, LocalDateTime to, String cursor, int size) {
+        LocalDateTime periodStart = from == null ? LocalDate.now().atStartOfDay() : from;
+        LocalDateTime periodEnd = to == null ? periodStart.plusDays(1) : to;
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        Set<Long> departmentIds = getDepartmentIdsForCurrentUser();
+        if(departmentIds.isEmpty() || !periodStart.isBefore(periodEnd)) {
+            return TaskPageDto.builder()
+                    .tasks(List.of())
+                    .build();
+        }
+        TaskCursor taskCursor = cursor == null ? null : taskCursorHelper.decode(cursor);
+        List<TaskEntity> taskEntities = Stream.concat(
+                        findStoredTasks(departmentIds, periodStart, periodEnd, taskCursor, pageSize + 1).stream(),
+                        prescriptionScheduleService.findOccurrences(departmentIds, periodStart, periodEnd,
+                                taskCursor, pageSize + 1).stream())
+                .sorted(TASK_ORDER)
+                .limit(pageSize + 1)
+                .toList();
+        boolean hasNextPage = taskEntities.size() > pageSize;
+        List<TaskEntity> page = hasNextPage ? taskEntities.subList(0, pageSize) : taskEntities;
+        return TaskPageDto.builder()
+                .tasks(enrichWithMedicationMetadata(page.stream()
+                        .map(taskMapper::map)
+                        .toList()))
+                .nextCursor(hasNextPage ? getCursorForTask(page.get(page.size() - 1)) : null)
+                .build();
+    }
+
+    private List<TaskDto> enrichWithMedicationMetadata(List<TaskDto> tasks) {
+        Set<Long> medicationIds = tasks.stream()
+                .map(TaskDto::getMedicationId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if(medicationIds.isEmpty()) {
+            return tasks;
+        }
+        Map<Long, MedicationDto> medications;
+        try {
+            medications = medicationMetadataCache.getAll(medicationIds);
+        } catch (BaseApiException ex) {
+            return tasks;
+        }
+        return tasks.stream()
+                .map(task -> Optional.ofNullable(medications.get(task.getMedicationId()))
+                        .map(medication -> task.toBuilder()
+                                .medicationName(medication.getName())
+                                .medicationType(medication.getType())
+                                .build())
+                        .orElse(task))
+                .toList();
+    }
+
+    private List<TaskEntity> findStoredTasks(Set<Long> departmentIds, LocalDateTime from, LocalDateTime to,
+                                             TaskCursor cursor, int limit) {
+        Pageable pageable = PageRequest.of(0, limit);
+        if(cursor == null) {
+            return taskRepository.findAllByDepartmentIdsAndPeriod(departmentIds, from, to, pageable);
+        }
+        return taskRepository.findAllByDepartmentIdsAndPeriodAfter(departmentIds,
+                from, cursor.getDateTimeOfIssue(), cursor.getId(), to, pageable);
     }
 
     public TaskDto findById(UUID id) {
         return taskMapper.map(getEntityByIdOrThrowException(id));
     }
 
-    private List<DepartmentDto> getDepartmentsListForCurrentUser() {
-        UserDto user = userService.findUserByUsername(getCurrentUser().getUsername());
-        if(user.getRole() == UserRoleEnum.ROLE_ADMIN) {
-            return departmentService.findAll();
+    @SuppressWarnings("unchecked")
+    private Set<Long> getDepartmentIdsForCurrentUser() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if(requestAttributes != null) {
+            Object cached = requestAttributes.getAttribute(DEPARTMENT_IDS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if(cached != null) {
+                return (Set<Long>) cached;
+            }
+        }
+        Set<Long> departmentIds = Set.copyOf(loadDepartmentIdsForCurrentUser());
+        if(requestAttributes != null) {
+            requestAttributes.setAttribute(DEPARTMENT_IDS_ATTRIBUTE, departmentIds, RequestAttributes.SCOPE_REQUEST);
+        }
+        return departmentIds;
+    }
+
+    private List<Long> loadDepartmentIdsForCurrentUser() {
+        CustomUserDetails currentUser = getCurrentUser();
+        if(isAdmin(currentUser)) {
+            return departmentService.findAllIds();
+        }
+        if(isCurrent(currentUser)) {
+            return List.copyOf(currentUser.getDepartmentIds());
         }
-        return user.getDepartments();
+        return departmentService.findAllIdsByUsername(currentUser.getUsername());
+    }
+
+    private boolean isAdmin(CustomUserDetails currentUser) {
+        return currentUser.getAuthorities().stream()
+                .anyMatch(authority -> authority.getAuthority().equals(UserRoleEnum.ROLE_ADMIN.name()));
+    }
+
+    private boolean isCurrent(CustomUserDetails currentUser) {
+        return tokenVersionCache.get(currentUser.getUsername())
+                .filter(version -> version == currentUser.getVersion())
+                .isPresent();
+    }
+
+    private String getCursorForTask(TaskEntity taskEntity) {
+        return taskCursorHelper.encode(TaskCursor.builder()
+                .dateTimeOfIssue(taskEntity.getDateTimeOfIssue())
+                .id(taskEntity.getId())
+                .build());
     }
 
     private CustomUserDetails getCurrentUser() {
@@ -78,28 +190,14 @@ public class TaskService {
     public List<TaskDto> save(NewTaskDto dto) {
         validateNewDto(dto);
         int quantity = dto.getAmountOfDays() * dto.getTimeOfIssuing().size();
-        medicationRestClient.reduceQuantity(dto.getMedicationId(), quantity);
-        List<TaskEntity> taskEntities = saveAndGetTaskEntityListFromDto(dto);
-        return taskEntities.stream()
+        DepartmentEntity departmentEntity = departmentService.getEntityByIdOrThrowException(dto.getDepartmentId());
+        List<TaskDto> tasks = prescriptionScheduleService.save(dto, departmentEntity).stream()
                 .map(taskMapper::map)
                 .toList();
+        medicationOutboxService.enqueue(dto.getMedicationId(), -quantity);
+        return tasks;
     }
 
-    private List<TaskEntity> saveAndGetTaskEntityListFromDto(NewTaskDto dto) {
-        DepartmentEntity departmentEntity = departmentService.getEntityByIdOrThrowException(dto.getDepartmentId());
-        return IntStream.range(0, dto.getAmountOfDays())
-                .boxed()
-                .flatMap(i -> dto.getTimeOfIssuing().stream()
-                        .map(time -> LocalDateTime.of(dto.getStartDay(), time).plusDays(i))
-                        .map(dateTimeOfIssue -> TaskEntity.builder()
-                                .patient(dto.getPatient())
-                                .medicationId(dto.getMedicationId())
-                                .department(departmentEntity)
-                                .dateTimeOfIssue(dateTimeOfIssue)
-                                .build())
-                        .map(taskRepository::save))
-                .toList();
-    }
     private void validateNewDto(NewTaskDto dto) {
         if(dto.getStartDay().isBefore(LocalDate.now())) {
             throw new TaskOutdatedException(
@@ -119,23 +217,33 @@ public class TaskService {
 
     @Transactional
     public void delete(UUID id) {
-        Optional<TaskEntity> optionalTask = getOptionalEntityById(id);
+        Optional<TaskEntity> storedTask = taskRepository.findById(id);
+        Optional<TaskEntity> optionalTask = storedTask.isPresent() ? storedTask
+                : prescriptionScheduleService.findOccurrenceById(id);
         optionalTask.ifPresent(taskEntity -> {
             if(departmentIdIsNotValidated(taskEntity.getDepartment().getId())) {
                 return;
             }
             if(taskEntity.getDateTimeOfIssue().isAfter(LocalDateTime.now())) {
-                medicationRestClient.increaseQuantity(taskEntity.getMedicationId(), 1);
+                medicationOutboxService.enqueue(taskEntity.getMedicationId(), 1);
+            }
+            if(storedTask.isPresent()) {
+                taskRepository.delete(taskEntity);
+            } else {
+                prescriptionScheduleService.cancelOccurrence(taskEntity);
             }
-            taskRepository.delete(taskEntity);
         });
     }
     private boolean departmentIdIsNotValidated(Long id) {
-        return getDepartmentsListForCurrentUser().stream()
-                .noneMatch(x -> x.getId().equals(id));
+        CustomUserDetails currentUser = getCurrentUser();
+        if(id != null && !isAdmin(currentUser) && isCurrent(currentUser)) {
+            return !currentUser.isMemberOf(id);
+        }
+        return !getDepartmentIdsForCurrentUser().contains(id);
     }
     private Optional<TaskEntity> getOptionalEntityById(UUID id) {
-        return taskRepository.findById(id);
+        Optional<TaskEntity> storedTask = taskRepository.findById(id);
+        return storedTask.isPresent() ? storedTask : prescriptionScheduleService.findOccurrenceById(id);
     }
 
     private TaskEntity getEntityByIdOrThrowException(UUID id) {
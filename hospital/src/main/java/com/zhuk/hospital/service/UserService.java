@@ -1,6 +1,7 @@
 package com.zhuk.hospital.service;
 
 import com.zhuk.hospital.dto.CredentialsDto;
+import com.zhuk.hospital.dto.DepartmentDto;
 import com.zhuk.hospital.dto.UserDto;
 import com.zhuk.hospital.entity.DepartmentEntity;
 import com.zhuk.hospital.entity.UserEntity;
@@ -11,6 +12,8 @@ import com.zhuk.hospital.exception.user.UserAlreadyExistsException;
 import com.zhuk.hospital.exception.user.UserNotFoundException;
 import com.zhuk.hospital.mapper.UserMapper;
 import com.zhuk.hospital.repository.UserRepository;
+import com.zhuk.hospital.security.TokenService;
+import com.zhuk.hospital.security.UserCacheInvalidator;
 import com.zhuk.hospital.utils.ErrorCodeHelper;
 import com.zhuk.hospital.utils.MessageSourceWrapper;
 import lombok.RequiredArgsConstructor;
@@ -20,7 +23,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -30,16 +36,45 @@ public class UserService {
     private final PasswordEncoder passwordEncoder;
     private final MessageSourceWrapper messageSourceWrapper;
     private final ErrorCodeHelper errorCodeHelper;
+    private final TokenService tokenService;
+    private final UserCacheInvalidator userCacheInvalidator;
+    private final PrescriptionScheduleService prescriptionScheduleService;
 
+    @Transactional(readOnly = true)
     public List<UserDto> findAll() {
         List<UserEntity> list = userRepository.findAll();
-        return list.stream()
+        return addOccurrences(list.stream()
                 .map(userMapper::map)
-                .toList();
+                .toList());
     }
 
+    @Transactional(readOnly = true)
     public UserDto findUserByUsername(String username) {
-        return userMapper.map(getUserEntityByUsernameOrThrowException(username));
+        UserDto user = userMapper.map(userRepository.findWithDepartmentsByUsername(username).orElseThrow(
+                () -> new UserNotFoundException(
+                        HttpStatus.NOT_FOUND,
+                        messageSourceWrapper.getMessageCode(ApiMessageEnum.USER_NOT_FOUND),
+                        errorCodeHelper.getCode(ErrorCodeEnum.USER_NOT_FOUND_CODE)
+                )
+        ));
+        return addOccurrences(List.of(user)).get(0);
+    }
+
+    private List<UserDto> addOccurrences(List<UserDto> users) {
+        Map<Long, DepartmentDto> departments = prescriptionScheduleService.addOccurrences(users.stream()
+                        .filter(user -> user.getDepartments() != null)
+                        .flatMap(user -> user.getDepartments().stream())
+                        .distinct()
+                        .toList())
+                .stream()
+                .collect(Collectors.toMap(DepartmentDto::getId, Function.identity(), (first, second) -> first));
+        return users.stream()
+                .map(user -> user.getDepartments() == null ? user : user.toBuilder()
+                        .departments(user.getDepartments().stream()
+                                .map(department -> departments.get(department.getId()))
+                                .toList())
+                        .build())
+                .toList();
     }
 
     public UserDto saveUser(CredentialsDto credentials) {
@@ -63,6 +98,8 @@ public class UserService {
         UserEntity userEntity = getUserEntityByUsernameOrThrowException(username);
         userEntity.getDepartments().add(departmentEntity);
         userRepository.save(userEntity);
+        tokenService.revoke(username);
+        userCacheInvalidator.invalidate(username);
     }
 
     @Transactional
@@ -70,11 +107,15 @@ public class UserService {
         UserEntity userEntity = getUserEntityByUsernameOrThrowException(username);
         userEntity.getDepartments().remove(departmentEntity);
         userRepository.save(userEntity);
+        tokenService.revoke(username);
+        userCacheInvalidator.invalidate(username);
     }
 
     @Transactional
     public void deleteUserByUsername(String username) {
         userRepository.deleteByUsername(username);
+        tokenService.revoke(username);
+        userCacheInvalidator.invalidate(username);
     }
 
     @Transactional
@@ -92,6 +133,10 @@ public class UserService {
         UserEntity entity = user.get();
         userRepository.updateByUsername(entity.getUsername(), credentialsDto.getUsername(),
                 passwordEncoder.encode(String.valueOf(credentialsDto.getPassword())));
+        tokenService.revoke(entity.getUsername());
+        tokenService.revoke(credentialsDto.getUsername());
+        userCacheInvalidator.invalidate(entity.getUsername());
+        userCacheInvalidator.invalidate(credentialsDto.getUsername());
         return userMapper.map(entity.toBuilder()
                 .username(credentialsDto.getUsername())
                 .password(String.valueOf(credentialsDto.getPassword()))
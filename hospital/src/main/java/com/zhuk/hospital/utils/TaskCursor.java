@@ -0,0 +1,29 @@
+package com.zhuk.hospital.utils;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Value
+@Builder
+public class TaskCursor {
+    LocalDateTime dateTimeOfIssue;
+    UUID id;
+
+    public boolean isBefore(LocalDateTime otherDateTimeOfIssue, UUID otherId) {
+        int byDateTime = dateTimeOfIssue.compareTo(otherDateTimeOfIssue);
+        return byDateTime < 0 || (byDateTime == 0 && compareIds(id, otherId) < 0);
+    }
+
+    // Unsigned comparison gives the same order as Postgres uses for uuid columns.
+    public static int compareIds(UUID first, UUID second) {
+        int byMostSignificantBits = Long.compareUnsigned(first.getMostSignificantBits(),
+                second.getMostSignificantBits());
+        if(byMostSignificantBits != 0) {
+            return byMostSignificantBits;
+        }
+        return Long.compareUnsigned(first.getLeastSignificantBits(), second.getLeastSignificantBits());
+    }
+}
@@ -0,0 +1,41 @@
+package com.zhuk.hospital.utils;
+
+import com.zhuk.hospital.enums.ApiMessageEnum;
+import com.zhuk.hospital.enums.ErrorCodeEnum;
+import com.zhuk.hospital.exception.task.TaskCursorInvalidException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+@Component
+@RequiredArgsConstructor
+public class TaskCursorHelper {
+    private static final String SEPARATOR = "|";
+    private final MessageSourceWrapper messageSourceWrapper;
+    private final ErrorCodeHelper errorCodeHelper;
+
+    public String encode(TaskCursor cursor) {
+        String raw = cursor.getDateTimeOfIssue().toString() + SEPARATOR + cursor.getId().toString();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public TaskCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = raw.indexOf(SEPARATOR);
+            return TaskCursor.builder()
+                    .dateTimeOfIssue(LocalDateTime.parse(raw.substring(0, separatorIndex)))
+                    .id(UUID.fromString(raw.substring(separatorIndex + 1)))
+                    .build();
+        } catch (RuntimeException ex) {
+            throw new TaskCursorInvalidException(HttpStatus.BAD_REQUEST,
+                    messageSourceWrapper.getMessageCode(ApiMessageEnum.TASK_CURSOR_INVALID),
+                    errorCodeHelper.getCode(ErrorCodeEnum.TASK_CURSOR_INVALID_CODE));
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.zhuk.hospital.client;
+
+import com.sun.net.httpserver.HttpServer;
+import com.zhuk.hospital.exception.medication.MedicationUnavailableException;
+import com.zhuk.hospital.exception.medication.MedicationUnknownException;
+import com.zhuk.hospital.utils.ErrorCodeHelper;
+import com.zhuk.hospital.utils.MessageSourceWrapper;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class MedicationCircuitBreakerTest {
+    private static final int WINDOW_SIZE = 4;
+    private final RestTemplateConfig restTemplateConfig = new RestTemplateConfig();
+    private final MedicationResilienceConfig medicationResilienceConfig = new MedicationResilienceConfig();
+    private final AtomicInteger receivedRequests = new AtomicInteger();
+    private volatile StubMode stubMode = StubMode.HEALTHY;
+    private volatile CountDownLatch requestReceived = new CountDownLatch(1);
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private MedicationApiProperties properties;
+    private CloseableHttpClient httpClient;
+    private CircuitBreaker circuitBreaker;
+    private SimpleMeterRegistry meterRegistry;
+    private MedicationRestClient medicationRestClient;
+
+    private enum StubMode {
+        HEALTHY, SLOW, FAILING
+    }
+
+    @BeforeEach
+    public void init() throws Exception {
+        serverExecutor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/medication", exchange -> {
+            receivedRequests.incrementAndGet();
+            requestReceived.countDown();
+            StubMode mode = stubMode;
+            if(mode == StubMode.SLOW) {
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            exchange.getResponseHeaders().set("Connection", "close");
+            exchange.sendResponseHeaders(mode == StubMode.FAILING ? 500 : 200, -1);
+            exchange.close();
+        });
+        server.setExecutor(serverExecutor);
+        server.start();
+        properties = new MedicationApiProperties();
+        properties.setUrl("http://localhost:" + server.getAddress().getPort() + "/api/medication");
+        properties.setUsername("USER");
+        properties.setPassword("PASSWORD");
+        properties.setMaxAttempts(1);
+        properties.getCircuitBreaker().setSlidingWindowSize(WINDOW_SIZE);
+        properties.getCircuitBreaker().setMinimumNumberOfCalls(WINDOW_SIZE);
+        properties.getCircuitBreaker().setSlowCallDurationThreshold(Duration.ofMillis(100));
+        properties.getCircuitBreaker().setWaitDurationInOpenState(Duration.ofMillis(200));
+        properties.getCircuitBreaker().setPermittedNumberOfCallsInHalfOpenState(2);
+        properties.getBulkhead().setMaxConcurrentCalls(1);
+        CircuitBreakerRegistry circuitBreakerRegistry =
+                medicationResilienceConfig.medicationCircuitBreakerRegistry(properties);
+        circuitBreaker = medicationResilienceConfig.medicationCircuitBreaker(circuitBreakerRegistry);
+        meterRegistry = new SimpleMeterRegistry();
+        medicationResilienceConfig.medicationCircuitBreakerMetrics(circuitBreakerRegistry, circuitBreaker)
+                .bindTo(meterRegistry);
+        httpClient = restTemplateConfig.medicationHttpClient(
+                restTemplateConfig.medicationConnectionManager(properties), properties);
+        medicationRestClient = new MedicationRestClient(properties,
+                new MedicationExceptionResolver(mock(MessageSourceWrapper.class), new ErrorCodeHelper()),
+                restTemplateConfig.restTemplate(new RestTemplateBuilder(), httpClient), circuitBreaker,
+                medicationResilienceConfig.medicationBulkhead(
+                        medicationResilienceConfig.medicationBulkheadRegistry(properties)));
+    }
+
+    @AfterEach
+    public void destroy() throws IOException {
+        httpClient.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void reduceQuantity_ShouldFailFast_WhenFailureRateExceedsThreshold() {
+        stubMode = StubMode.FAILING;
+        for(int i = 0; i < WINDOW_SIZE; i++) {
+            assertThrows(MedicationUnknownException.class, () -> medicationRestClient.reduceQuantity(1L, 1));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertThrows(MedicationUnavailableException.class, () -> medicationRestClient.reduceQuantity(1L, 1));
+        assertEquals(WINDOW_SIZE, receivedRequests.get());
+        assertEquals(1, getTransitionCount(CircuitBreaker.State.CLOSED, CircuitBreaker.State.OPEN));
+        assertEquals(1, meterRegistry.get("resilience4j.circuitbreaker.state")
+                .tag("state", "open").gauge().value());
+    }
+
+    @Test
+    public void reduceQuantity_ShouldOpenCircuit_WhenCallsAreSlow() {
+        stubMode = StubMode.SLOW;
+        for(int i = 0; i < WINDOW_SIZE; i++) {
+            medicationRestClient.reduceQuantity(1L, 1);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertThrows(MedicationUnavailableException.class, () -> medicationRestClient.reduceQuantity(1L, 1));
+        assertEquals(WINDOW_SIZE, receivedRequests.get());
+    }
+
+    @Test
+    public void reduceQuantity_ShouldCloseCircuit_WhenHalfOpenProbesSucceed() throws Exception {
+        stubMode = StubMode.FAILING;
+        for(int i = 0; i < WINDOW_SIZE; i++) {
+            assertThrows(MedicationUnknownException.class, () -> medicationRestClient.reduceQuantity(1L, 1));
+        }
+        stubMode = StubMode.HEALTHY;
+        long deadline = System.currentTimeMillis() + 5000;
+        while(circuitBreaker.getState() != CircuitBreaker.State.HALF_OPEN && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        medicationRestClient.reduceQuantity(1L, 1);
+        medicationRestClient.reduceQuantity(1L, 1);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(1, getTransitionCount(CircuitBreaker.State.OPEN, CircuitBreaker.State.HALF_OPEN));
+        assertEquals(1, getTransitionCount(CircuitBreaker.State.HALF_OPEN, CircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    public void reduceQuantity_ShouldFailFast_WhenBulkheadIsFull() throws Exception {
+        stubMode = StubMode.SLOW;
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> inFlight = caller.submit(() -> medicationRestClient.reduceQuantity(1L, 1));
+            assertTrue(requestReceived.await(5, TimeUnit.SECONDS));
+            assertThrows(MedicationUnavailableException.class, () -> medicationRestClient.reduceQuantity(1L, 1));
+            inFlight.get(5, TimeUnit.SECONDS);
+        } finally {
+            caller.shutdownNow();
+        }
+        assertEquals(1, receivedRequests.get());
+    }
+
+    private double getTransitionCount(CircuitBreaker.State from, CircuitBreaker.State to) {
+        return meterRegistry.get(MedicationResilienceConfig.STATE_TRANSITIONS_METRIC)
+                .tag("from", from.name())
+                .tag("to", to.name())
+                .counter().count();
+    }
+}
@@ -0,0 +1,112 @@
+package com.zhuk.hospital.client;
+
+import com.zhuk.hospital.dto.MedicationDto;
+import com.zhuk.hospital.exception.medication.MedicationUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+public class MedicationMetadataCacheTest {
+    private MedicationRestClient medicationRestClient;
+    private MedicationMetadataCache medicationMetadataCache;
+
+    @BeforeEach
+    public void init() {
+        medicationRestClient = mock(MedicationRestClient.class);
+        when(medicationRestClient.findAllByIds(any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream()
+                    .filter(id -> id < 100)
+                    .map(this::getMedication)
+                    .toList();
+        });
+        medicationMetadataCache = new MedicationMetadataCache(new MedicationApiProperties(), medicationRestClient);
+    }
+
+    @Test
+    public void getAll_ShouldLoadAllMissingIdsInOneCall_WhenCacheIsCold() {
+        Map<Long, MedicationDto> medications = medicationMetadataCache.getAll(List.of(1L, 2L, 3L));
+        assertEquals(Set.of(1L, 2L, 3L), medications.keySet());
+        assertEquals("MEDICATION 2", medications.get(2L).getName());
+        verify(medicationRestClient, times(1)).findAllByIds(any());
+    }
+
+    @Test
+    public void getAll_ShouldNotCallRemote_WhenCacheIsWarm() {
+        medicationMetadataCache.getAll(List.of(1L, 2L));
+        clearInvocations(medicationRestClient);
+        Map<Long, MedicationDto> medications = medicationMetadataCache.getAll(List.of(2L, 1L));
+        assertEquals(2, medications.size());
+        verifyNoInteractions(medicationRestClient);
+    }
+
+    @Test
+    public void getAll_ShouldRequestOnlyMissingIds_WhenCacheIsPartiallyWarm() {
+        medicationMetadataCache.getAll(List.of(1L));
+        clearInvocations(medicationRestClient);
+        Map<Long, MedicationDto> medications = medicationMetadataCache.getAll(List.of(1L, 2L, 3L));
+        assertEquals(3, medications.size());
+        verify(medicationRestClient, times(1)).findAllByIds(argThat(ids -> Set.copyOf(ids).equals(Set.of(2L, 3L))));
+        verifyNoMoreInteractions(medicationRestClient);
+    }
+
+    @Test
+    public void getAll_ShouldRememberUnknownIds_WhenRemoteDoesntReturnThem() {
+        assertTrue(medicationMetadataCache.getAll(List.of(100L)).isEmpty());
+        assertTrue(medicationMetadataCache.getAll(List.of(100L)).isEmpty());
+        verify(medicationRestClient, times(1)).findAllByIds(any());
+    }
+
+    @Test
+    public void getAll_ShouldReloadOnlyUnknownIds_WhenAbsentTtlHasPassed() {
+        MedicationApiProperties properties = new MedicationApiProperties();
+        properties.getMetadataCache().setAbsentTtl(Duration.ZERO);
+        medicationMetadataCache = new MedicationMetadataCache(properties, medicationRestClient);
+        medicationMetadataCache.getAll(List.of(1L, 100L));
+        clearInvocations(medicationRestClient);
+        assertEquals(Set.of(1L), medicationMetadataCache.getAll(List.of(1L, 100L)).keySet());
+        verify(medicationRestClient, times(1)).findAllByIds(argThat(ids -> Set.copyOf(ids).equals(Set.of(100L))));
+    }
+
+    @Test
+    public void getAll_ShouldPropagateExceptionAndNotCache_WhenRemoteFails() {
+        doThrow(new MedicationUnavailableException(HttpStatus.SERVICE_UNAVAILABLE, "UNAVAILABLE", 0))
+                .when(medicationRestClient).findAllByIds(any());
+        assertThrows(MedicationUnavailableException.class, () -> medicationMetadataCache.getAll(List.of(1L)));
+        reset(medicationRestClient);
+        when(medicationRestClient.findAllByIds(any())).thenReturn(List.of(getMedication(1L)));
+        assertEquals(1, medicationMetadataCache.getAll(List.of(1L)).size());
+    }
+
+    @Test
+    public void bindTo_ShouldRegisterCacheMetrics_WhenCalled() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        medicationMetadataCache.bindTo(meterRegistry);
+        medicationMetadataCache.getAll(List.of(1L));
+        medicationMetadataCache.getAll(List.of(1L));
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", MedicationMetadataCache.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count());
+    }
+
+    private MedicationDto getMedication(Long id) {
+        return MedicationDto.builder()
+                .id(id)
+                .name("MEDICATION " + id)
+                .manufacturer("TEST")
+                .type("PEN")
+                .weight(400)
+                .build();
+    }
+}
@@ -1,11 +1,15 @@
 package com.zhuk.hospital.client;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zhuk.hospital.dto.MedicationDto;
+import com.zhuk.hospital.dto.MedicationQuantityChangeDto;
+import com.zhuk.hospital.dto.MedicationQuantityChangeResultDto;
 import com.zhuk.hospital.dto.UpdateMedicationQuantityDto;
 import com.zhuk.hospital.exception.medication.MedicationBadRequestException;
 import com.zhuk.hospital.exception.medication.MedicationForbiddenException;
 import com.zhuk.hospital.exception.medication.MedicationNotFoundException;
 import com.zhuk.hospital.exception.medication.MedicationUnauthorizedException;
+import com.zhuk.hospital.exception.medication.MedicationUnknownException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,10 +17,20 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
 import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.util.StringUtils;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
@@ -118,6 +132,85 @@ public class MedicationRestClientTest {
         assertThrows(MedicationNotFoundException.class, () -> medicationRestClient.reduceQuantity(1L, -4));
     }
 
+    @Test
+    public void updateQuantities_ShouldReturnResults_WhenHappyPath() throws Exception {
+        List<MedicationQuantityChangeDto> changes = List.of(
+                MedicationQuantityChangeDto.builder().medicationId(1L).quantity(-4).build(),
+                MedicationQuantityChangeDto.builder().medicationId(2L).quantity(3).build());
+        List<MedicationQuantityChangeResultDto> results = List.of(
+                MedicationQuantityChangeResultDto.builder().medicationId(1L).appliedQuantity(-4).remainingQuantity(6).build(),
+                MedicationQuantityChangeResultDto.builder().medicationId(2L).appliedQuantity(3).remainingQuantity(13).build());
+        mockServer.expect(requestTo(apiProperties.getUrl()))
+                .andExpect(method(HttpMethod.PATCH))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(objectMapper.writeValueAsString(changes)))
+                .andRespond(withSuccess(objectMapper.writeValueAsString(results), MediaType.APPLICATION_JSON));
+        assertEquals(results, medicationRestClient.updateQuantities(changes));
+        mockServer.verify();
+    }
+
+    @Test
+    public void updateQuantities_ShouldThrowMedicationBadRequest_WhenBadRequest() {
+        mockServer.expect(requestTo(apiProperties.getUrl()))
+                .andExpect(method(HttpMethod.PATCH))
+                .andRespond(withStatus(HttpStatus.BAD_REQUEST));
+        assertThrows(MedicationBadRequestException.class, () -> medicationRestClient.updateQuantities(List.of(
+                MedicationQuantityChangeDto.builder().medicationId(1L).quantity(-4).build())));
+    }
+
+    @Test
+    public void reduceQuantity_ShouldRetryWithSameIdempotencyKey_WhenRequestTimesOut() {
+        List<String> keys = new ArrayList<>();
+        mockServer.expect(requestTo(getDefaultUriForMedicationId(1L)))
+                .andExpect(method(HttpMethod.PATCH))
+                .andExpect(request -> keys.add(request.getHeaders()
+                        .getFirst(MedicationRestClient.IDEMPOTENCY_KEY_HEADER)))
+                .andRespond(request -> {
+                    throw new SocketTimeoutException();
+                });
+        mockServer.expect(requestTo(getDefaultUriForMedicationId(1L)))
+                .andExpect(method(HttpMethod.PATCH))
+                .andExpect(request -> keys.add(request.getHeaders()
+                        .getFirst(MedicationRestClient.IDEMPOTENCY_KEY_HEADER)))
+                .andRespond(withSuccess());
+        medicationRestClient.reduceQuantity(1L, 4);
+        mockServer.verify();
+        assertEquals(2, keys.size());
+        assertNotNull(keys.get(0));
+        assertEquals(keys.get(0), keys.get(1));
+    }
+
+    @Test
+    public void reduceQuantity_ShouldThrowMedicationUnknown_WhenAllAttemptsTimeOut() {
+        mockServer.expect(ExpectedCount.times(apiProperties.getMaxAttempts()),
+                        requestTo(getDefaultUriForMedicationId(1L)))
+                .andExpect(method(HttpMethod.PATCH))
+                .andRespond(request -> {
+                    throw new SocketTimeoutException();
+                });
+        assertThrows(MedicationUnknownException.class, () -> medicationRestClient.reduceQuantity(1L, 4));
+        mockServer.verify();
+    }
+
+    @Test
+    public void findAllByIds_ShouldSplitIdsIntoChunks_WhenMoreThanMaxIdsPerRequest() throws Exception {
+        int maxIdsPerRequest = apiProperties.getMaxIdsPerRequest();
+        List<Long> ids = LongStream.rangeClosed(1, maxIdsPerRequest + 1).boxed().toList();
+        mockServer.expect(requestTo(startsWith(apiProperties.getUrl())))
+                .andExpect(method(HttpMethod.GET))
+                .andExpect(queryParam("ids", StringUtils.collectionToCommaDelimitedString(
+                        ids.subList(0, maxIdsPerRequest))))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+        mockServer.expect(requestTo(startsWith(apiProperties.getUrl())))
+                .andExpect(method(HttpMethod.GET))
+                .andExpect(queryParam("ids", String.valueOf(maxIdsPerRequest + 1)))
+                .andRespond(withSuccess(objectMapper.writeValueAsString(List.of(MedicationDto.builder()
+                        .id((long) maxIdsPerRequest + 1)
+                        .build())), MediaType.APPLICATION_JSON));
+        assertEquals(1, medicationRestClient.findAllByIds(ids).size());
+        mockServer.verify();
+    }
+
     private String getDefaultUriForMedicationId(Long medicationId) {
         return UriComponentsBuilder.fromUriString(apiProperties.getUrl() + "/"+ medicationId.toString())
                 .toUriString();
@@ -0,0 +1,110 @@
+package com.zhuk.hospital.client;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RestTemplateConfigTest {
+    private static final int REQUESTS = 16;
+    private final RestTemplateConfig restTemplateConfig = new RestTemplateConfig();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+
+    @BeforeEach
+    public void init() throws Exception {
+        serverExecutor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/medication", exchange -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            exchange.getResponseHeaders().set("Connection", "close");
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.setExecutor(serverExecutor);
+        server.start();
+    }
+
+    @AfterEach
+    public void destroy() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void restTemplate_ShouldLimitConcurrency_WhenPoolIsSmall() throws Exception {
+        assertEquals(2, getMaxConcurrencyForPoolSize(2));
+    }
+
+    @Test
+    public void restTemplate_ShouldScaleConcurrency_WhenPoolIsLarger() throws Exception {
+        assertEquals(8, getMaxConcurrencyForPoolSize(8));
+    }
+
+    @Test
+    public void medicationConnectionPoolMetrics_ShouldExposePoolGauges_WhenBound() throws Exception {
+        MedicationApiProperties properties = getProperties(4);
+        try (PoolingHttpClientConnectionManager connectionManager =
+                     restTemplateConfig.medicationConnectionManager(properties)) {
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            restTemplateConfig.medicationConnectionPoolMetrics(connectionManager).bindTo(registry);
+            assertEquals(4, registry.get("httpcomponents.httpclient.pool.total.max").gauge().value());
+            assertEquals(0, registry.get("httpcomponents.httpclient.pool.total.connections")
+                    .tag("state", "leased").gauge().value());
+            assertEquals(0, registry.get("httpcomponents.httpclient.pool.total.pending").gauge().value());
+        }
+    }
+
+    private int getMaxConcurrencyForPoolSize(int poolSize) throws Exception {
+        MedicationApiProperties properties = getProperties(poolSize);
+        PoolingHttpClientConnectionManager connectionManager = restTemplateConfig.medicationConnectionManager(properties);
+        ExecutorService callers = Executors.newFixedThreadPool(REQUESTS);
+        try (CloseableHttpClient httpClient = restTemplateConfig.medicationHttpClient(connectionManager, properties)) {
+            RestTemplate restTemplate = restTemplateConfig.restTemplate(new RestTemplateBuilder(), httpClient);
+            String uri = "http://localhost:" + server.getAddress().getPort() + "/api/medication";
+            List<Future<?>> futures = new ArrayList<>();
+            for(int i = 0; i < REQUESTS; i++) {
+                futures.add(callers.submit(() -> restTemplate.getForEntity(uri, Void.class)));
+            }
+            for(Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        return maxInFlight.get();
+    }
+
+    private MedicationApiProperties getProperties(int poolSize) {
+        MedicationApiProperties properties = new MedicationApiProperties();
+        properties.setMaxConnections(poolSize);
+        properties.setMaxConnectionsPerRoute(poolSize);
+        properties.setConnectionRequestTimeout(Duration.ofSeconds(10));
+        return properties;
+    }
+}
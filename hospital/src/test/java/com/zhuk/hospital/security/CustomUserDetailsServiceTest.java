@@ -0,0 +1,127 @@
+package com.zhuk.hospital.security;
+
+import com.zhuk.hospital.entity.DepartmentEntity;
+import com.zhuk.hospital.entity.UserEntity;
+import com.zhuk.hospital.enums.UserRoleEnum;
+import com.zhuk.hospital.exception.user.UserNotFoundException;
+import com.zhuk.hospital.repository.UserRepository;
+import com.zhuk.hospital.utils.ErrorCodeHelper;
+import com.zhuk.hospital.utils.MessageSourceWrapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class CustomUserDetailsServiceTest {
+    private static final String USERNAME = "DOCTOR";
+    private UserRepository userRepository;
+    private JdbcTemplate jdbcTemplate;
+    private UserDetailsCache userDetailsCache;
+    private UserCacheInvalidator userCacheInvalidator;
+    private CustomUserDetailsService customUserDetailsService;
+
+    @BeforeEach
+    public void init() {
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findWithDepartmentsByUsername(USERNAME)).thenReturn(Optional.of(UserEntity.builder()
+                .username(USERNAME)
+                .password("PASSWORD")
+                .role(UserRoleEnum.ROLE_DOCTOR)
+                .tokenVersion(3)
+                .departments(List.of(DepartmentEntity.builder().id(5L).build(),
+                        DepartmentEntity.builder().id(2L).build()))
+                .build()));
+        when(userRepository.findWithDepartmentsByUsername("UNKNOWN")).thenReturn(Optional.empty());
+        jdbcTemplate = mock(JdbcTemplate.class);
+        userDetailsCache = new UserDetailsCache(new UserDetailsCacheProperties());
+        TokenProperties tokenProperties = new TokenProperties();
+        userCacheInvalidator = new UserCacheInvalidator(userDetailsCache,
+                new AuthenticationCache(new AuthenticationCacheProperties()),
+                new TokenVersionCache(tokenProperties, userRepository), jdbcTemplate);
+        customUserDetailsService = new CustomUserDetailsService(userRepository, mock(MessageSourceWrapper.class),
+                mock(ErrorCodeHelper.class), userDetailsCache);
+    }
+
+    @Test
+    public void loadUserByUsername_ShouldQueryOnce_WhenUserIsCached() {
+        UserDetails first = customUserDetailsService.loadUserByUsername(USERNAME);
+        UserDetails second = customUserDetailsService.loadUserByUsername(USERNAME);
+        assertSame(first, second);
+        verify(userRepository, times(1)).findWithDepartmentsByUsername(USERNAME);
+    }
+
+    @Test
+    public void loadUserByUsername_ShouldSnapshotDepartmentMembership_WhenUserIsLoaded() {
+        CustomUserDetails userDetails = (CustomUserDetails) customUserDetailsService.loadUserByUsername(USERNAME);
+        assertTrue(userDetails.isMemberOf(2L));
+        assertTrue(userDetails.isMemberOf(5L));
+        assertFalse(userDetails.isMemberOf(3L));
+        assertEquals(Set.of(2L, 5L), userDetails.getDepartmentIds());
+        assertEquals(3, userDetails.getVersion());
+    }
+
+    @Test
+    public void loadUserByUsername_ShouldNotCache_WhenUserDoesntExist() {
+        assertThrows(UserNotFoundException.class, () -> customUserDetailsService.loadUserByUsername("UNKNOWN"));
+        assertThrows(UserNotFoundException.class, () -> customUserDetailsService.loadUserByUsername("UNKNOWN"));
+        verify(userRepository, times(2)).findWithDepartmentsByUsername("UNKNOWN");
+    }
+
+    @Test
+    public void invalidate_ShouldReloadUserAndNotifyOtherInstances_WhenCalled() {
+        customUserDetailsService.loadUserByUsername(USERNAME);
+        userCacheInvalidator.invalidate(USERNAME);
+        customUserDetailsService.loadUserByUsername(USERNAME);
+        verify(userRepository, times(2)).findWithDepartmentsByUsername(USERNAME);
+        verify(jdbcTemplate).query(eq("SELECT pg_notify(?, ?)"), any(RowCallbackHandler.class),
+                eq(UserCacheInvalidator.CHANNEL), eq(USERNAME));
+    }
+
+    @Test
+    public void invalidate_ShouldEvictAgain_WhenTransactionCompletes() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userCacheInvalidator.invalidate(USERNAME);
+            customUserDetailsService.loadUserByUsername(USERNAME);
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        customUserDetailsService.loadUserByUsername(USERNAME);
+        verify(userRepository, times(2)).findWithDepartmentsByUsername(USERNAME);
+    }
+
+    @Test
+    public void evictAll_ShouldReloadEveryUser_WhenCalled() {
+        customUserDetailsService.loadUserByUsername(USERNAME);
+        userCacheInvalidator.evictAll();
+        customUserDetailsService.loadUserByUsername(USERNAME);
+        verify(userRepository, times(2)).findWithDepartmentsByUsername(USERNAME);
+    }
+
+    @Test
+    public void bindTo_ShouldExposeHitAndMissMetrics_WhenCalled() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        userDetailsCache.bindTo(meterRegistry);
+        customUserDetailsService.loadUserByUsername(USERNAME);
+        customUserDetailsService.loadUserByUsername(USERNAME);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", UserDetailsCache.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", UserDetailsCache.CACHE_NAME)
+                .tag("result", "miss").functionCounter().count());
+    }
+}
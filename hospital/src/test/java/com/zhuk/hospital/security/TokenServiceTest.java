@@ -0,0 +1,137 @@
+package com.zhuk.hospital.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zhuk.hospital.entity.DepartmentEntity;
+import com.zhuk.hospital.entity.UserEntity;
+import com.zhuk.hospital.enums.UserRoleEnum;
+import com.zhuk.hospital.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class TokenServiceTest {
+    private static final Duration MAX_LIFETIME = Duration.ofHours(12);
+    private static final String USERNAME = "DOCTOR";
+    private UserRepository userRepository;
+    private TokenVersionCache tokenVersionCache;
+    private TokenService tokenService;
+
+    @BeforeEach
+    public void init() {
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findTokenVersionByUsername(USERNAME)).thenReturn(Optional.of(0));
+        tokenService = getTokenService("SECRET", Duration.ofMinutes(15));
+    }
+
+    @Test
+    public void verify_ShouldReturnUserDetails_WhenTokenIsValid() {
+        String token = tokenService.issue(getUser(), Instant.now());
+        CustomUserDetails userDetails = tokenService.verify(token).orElseThrow();
+        assertEquals(USERNAME, userDetails.getUsername());
+        assertNull(userDetails.getPassword());
+        assertEquals(UserRoleEnum.ROLE_DOCTOR.name(), userDetails.getAuthorities().iterator().next().getAuthority());
+        assertEquals(Set.of(1L, 2L), userDetails.getDepartmentIds());
+        assertTrue(userDetails.isMemberOf(1L));
+        assertFalse(userDetails.isMemberOf(3L));
+    }
+
+    @Test
+    public void verify_ShouldLookUpVersionOnce_WhenTokenIsUsedRepeatedly() {
+        String token = tokenService.issue(getUser(), Instant.now());
+        for(int i = 0; i < 10; i++) {
+            assertTrue(tokenService.verify(token).isPresent());
+        }
+        verify(userRepository, times(1)).findTokenVersionByUsername(USERNAME);
+    }
+
+    @Test
+    public void verify_ShouldReturnEmpty_WhenPayloadIsTampered() {
+        String token = tokenService.issue(getUser(), Instant.now());
+        String forgedPayload = tokenService.issue(getUser().toBuilder().role(UserRoleEnum.ROLE_ADMIN).build(),
+                        Instant.now())
+                .split("\\.")[0];
+        assertTrue(tokenService.verify(forgedPayload + token.substring(token.indexOf('.'))).isEmpty());
+        assertTrue(tokenService.verify("garbage").isEmpty());
+    }
+
+    @Test
+    public void verify_ShouldReturnEmpty_WhenSignedWithAnotherSecret() {
+        String token = getTokenService("ANOTHER SECRET", Duration.ofMinutes(15)).issue(getUser(), Instant.now());
+        assertTrue(tokenService.verify(token).isEmpty());
+    }
+
+    @Test
+    public void verify_ShouldReturnEmpty_WhenTokenIsExpired() {
+        String token = getTokenService("SECRET", Duration.ofSeconds(-1)).issue(getUser(), Instant.now());
+        assertTrue(tokenService.verify(token).isEmpty());
+    }
+
+    @Test
+    public void verify_ShouldReturnEmpty_WhenTokensAreRevoked() {
+        String token = tokenService.issue(getUser(), Instant.now());
+        assertTrue(tokenService.verify(token).isPresent());
+        when(userRepository.findTokenVersionByUsername(USERNAME)).thenReturn(Optional.of(1));
+        tokenService.revoke(USERNAME);
+        verify(userRepository).incrementTokenVersionByUsername(USERNAME);
+        tokenVersionCache.invalidate(USERNAME);
+        assertTrue(tokenService.verify(token).isEmpty());
+        String newToken = tokenService.issue(getUser().toBuilder().tokenVersion(1).build(), Instant.now());
+        assertTrue(tokenService.verify(newToken).isPresent());
+    }
+
+    @Test
+    public void verify_ShouldReturnEmpty_WhenUserIsDeleted() {
+        String token = tokenService.issue(getUser(), Instant.now());
+        when(userRepository.findTokenVersionByUsername(USERNAME)).thenReturn(Optional.empty());
+        assertTrue(tokenService.verify(token).isEmpty());
+    }
+
+    @Test
+    public void verify_ShouldReturnAuthTime_WhenTokenIsValid() {
+        Instant authTime = Instant.now().minus(Duration.ofHours(1)).truncatedTo(ChronoUnit.SECONDS);
+        String token = tokenService.issue(getUser(), authTime);
+        assertEquals(Optional.of(authTime), tokenService.verify(token).orElseThrow().getAuthTime());
+        assertTrue(tokenService.isRefreshable(authTime));
+    }
+
+    @Test
+    public void verify_ShouldReturnEmpty_WhenMaxLifetimeHasPassedSinceLogin() {
+        Instant authTime = Instant.now().minus(MAX_LIFETIME).minusSeconds(1);
+        assertTrue(tokenService.verify(tokenService.issue(getUser(), authTime)).isEmpty());
+        assertFalse(tokenService.isRefreshable(authTime));
+    }
+
+    @Test
+    public void init_ShouldThrowException_WhenSecretIsEmptyOutsideTestProfile() {
+        assertThrows(IllegalStateException.class, () -> getTokenService("", Duration.ofMinutes(15)));
+    }
+
+    private TokenService getTokenService(String secret, Duration ttl) {
+        TokenProperties tokenProperties = new TokenProperties();
+        tokenProperties.setSecret(secret);
+        tokenProperties.setTtl(ttl);
+        tokenProperties.setMaxLifetime(MAX_LIFETIME);
+        tokenVersionCache = new TokenVersionCache(tokenProperties, userRepository);
+        return new TokenService(tokenProperties, tokenVersionCache, userRepository, new ObjectMapper(),
+                new MockEnvironment());
+    }
+
+    private UserEntity getUser() {
+        return UserEntity.builder()
+                .username(USERNAME)
+                .role(UserRoleEnum.ROLE_DOCTOR)
+                .departments(List.of(DepartmentEntity.builder().id(2L).build(),
+                        DepartmentEntity.builder().id(1L).build()))
+                .build();
+    }
+}
@@ -4,6 +4,9 @@ import com.zhuk.hospital.dto.*;
 import com.zhuk.hospital.enums.UserRoleEnum;
 import com.zhuk.hospital.exception.department.DepartmentAlreadyExistsException;
 import com.zhuk.hospital.exception.department.DepartmentNotFoundException;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,7 +28,8 @@ import java.util.UUID;
 import static org.junit.jupiter.api.Assertions.*;
 
 @Testcontainers
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 public class DepartmentServiceTest {
     @Autowired
     @SpyBean
@@ -35,6 +39,8 @@ public class DepartmentServiceTest {
     UserService userService;
     @Autowired
     DataSource dataSource;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
 
     @Container
     @ServiceConnection
@@ -43,6 +49,9 @@ public class DepartmentServiceTest {
     @BeforeEach
     public void clearTables() throws Exception {
         try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement preparedStatementTasks = connection.prepareStatement("DELETE FROM tasks")) {
+                preparedStatementTasks.execute();
+            }
             try (PreparedStatement preparedStatementUserDepartment =
                          connection.prepareStatement("DELETE FROM user_department")) {
                 preparedStatementUserDepartment.execute();
@@ -83,6 +92,23 @@ public class DepartmentServiceTest {
         }
     }
 
+    @Test
+    public void findAll_ShouldLoadDepartmentsTasksAndSchedulesInTwoQueries_WhenManyDepartmentsExist() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        for (int i = 0; i < 5; i++) {
+            DepartmentDto department = departmentService.save(NewDepartmentDto.builder()
+                    .name("DEP" + i)
+                    .description("DESC")
+                    .build());
+            insertTasks(department.getId(), 3);
+        }
+        statistics.clear();
+        List<DepartmentDto> departments = departmentService.findAll();
+        assertEquals(5, departments.size());
+        departments.forEach(department -> assertEquals(3, department.getTasks().size()));
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
     @Test
     public void findById_ShouldReturnDepartment_WhenDepartmentExists() throws Exception {
         try (Connection connection = dataSource.getConnection()) {
@@ -315,6 +341,18 @@ public class DepartmentServiceTest {
         return actualId;
     }
 
+    private void insertTasks(Long departmentId, int amount) throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            String query = "INSERT INTO tasks (id, patient, medication_id, date_time_of_issue, department_id) " +
+                    "SELECT gen_random_uuid(), 'PATIENT', 1, now(), ? FROM generate_series(1, ?)";
+            try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+                preparedStatement.setLong(1, departmentId);
+                preparedStatement.setInt(2, amount);
+                preparedStatement.execute();
+            }
+        }
+    }
+
     private List<TaskDto> retrieveTasksForDepartment(Long departmentId) throws Exception {
         List<TaskDto> tasks = new ArrayList<>();
         try (Connection connection = dataSource.getConnection()) {
@@ -0,0 +1,332 @@
+package com.zhuk.hospital.service;
+
+import com.zhuk.hospital.client.MedicationRestClient;
+import com.zhuk.hospital.dto.MedicationQuantityChangeDto;
+import com.zhuk.hospital.exception.medication.MedicationBadRequestException;
+import com.zhuk.hospital.exception.medication.MedicationUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@Testcontainers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"medication.outbox.relay-delay=PT1H", "medication.outbox.max-attempts=2",
+                "medication.outbox.coalesce-window=0ms"})
+public class MedicationOutboxServiceTest {
+    @Autowired
+    MedicationOutboxService medicationOutboxService;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    MedicationOutboxProperties medicationOutboxProperties;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    DataSource dataSource;
+    @MockBean
+    MedicationRestClient medicationRestClient;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgreSQLContainer = new PostgreSQLContainer<>("postgres:15");
+
+    @BeforeEach
+    public void clearTables() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement preparedStatementOutbox = connection.prepareStatement("DELETE FROM medication_outbox")) {
+                preparedStatementOutbox.execute();
+            }
+            try (PreparedStatement preparedStatementDeadLetters =
+                         connection.prepareStatement("DELETE FROM medication_outbox_dead_letters")) {
+                preparedStatementDeadLetters.execute();
+            }
+        }
+    }
+
+    @Test
+    public void enqueue_ShouldThrowException_WhenCalledOutsideTransaction() {
+        assertThrows(IllegalTransactionStateException.class, () -> medicationOutboxService.enqueue(1L, -1));
+    }
+
+    @Test
+    public void relay_ShouldSendOneChangePerMedication_WhenRefundsArePending() throws Exception {
+        double deliveredEvents = getCount(MedicationOutboxService.DELIVERED_EVENTS_METRIC);
+        double sentChanges = getCount(MedicationOutboxService.SENT_CHANGES_METRIC);
+        enqueue(2L, -3);
+        for (int i = 0; i < 60; i++) {
+            enqueue(1L, 1);
+        }
+        medicationOutboxService.relay();
+        assertEquals(0, countRows("medication_outbox"));
+        verify(medicationRestClient).updateQuantities(eq(List.of(getChange(1L, 60), getChange(2L, -3))), anyString());
+        assertEquals(61, getCount(MedicationOutboxService.DELIVERED_EVENTS_METRIC) - deliveredEvents);
+        assertEquals(2, getCount(MedicationOutboxService.SENT_CHANGES_METRIC) - sentChanges);
+    }
+
+    @Test
+    public void relay_ShouldNotNetDecrementsAgainstRefunds_WhenSignsAreMixed() throws Exception {
+        enqueue(1L, 1);
+        enqueue(1L, 1);
+        enqueue(1L, -5);
+        enqueue(1L, -1);
+        enqueue(1L, 3);
+        medicationOutboxService.relay();
+        verify(medicationRestClient).updateQuantities(eq(List.of(getChange(1L, 2))), anyString());
+        assertEquals(3, countRows("medication_outbox"));
+        medicationOutboxService.relay();
+        medicationOutboxService.relay();
+        medicationOutboxService.relay();
+        assertEquals(0, countRows("medication_outbox"));
+        InOrder inOrder = inOrder(medicationRestClient);
+        inOrder.verify(medicationRestClient).updateQuantities(eq(List.of(getChange(1L, 2))), anyString());
+        inOrder.verify(medicationRestClient).updateQuantities(eq(List.of(getChange(1L, -5))), anyString());
+        inOrder.verify(medicationRestClient).updateQuantities(eq(List.of(getChange(1L, -1))), anyString());
+        inOrder.verify(medicationRestClient).updateQuantities(eq(List.of(getChange(1L, 3))), anyString());
+    }
+
+    @Test
+    public void relay_ShouldWaitForWindow_UnlessEnoughEventsPiledUp() throws Exception {
+        Duration coalesceWindow = medicationOutboxProperties.getCoalesceWindow();
+        int coalesceMaxEvents = medicationOutboxProperties.getCoalesceMaxEvents();
+        medicationOutboxProperties.setCoalesceWindow(Duration.ofHours(1));
+        medicationOutboxProperties.setCoalesceMaxEvents(3);
+        try {
+            enqueue(1L, 1);
+            enqueue(2L, 1);
+            enqueue(2L, 1);
+            enqueue(2L, 1);
+            medicationOutboxService.relay();
+            verify(medicationRestClient).updateQuantities(eq(List.of(getChange(2L, 3))), anyString());
+            assertEquals(1, countRows("medication_outbox"));
+            medicationOutboxService.flush();
+            verify(medicationRestClient).updateQuantities(eq(List.of(getChange(1L, 1))), anyString());
+            assertEquals(0, countRows("medication_outbox"));
+        } finally {
+            medicationOutboxProperties.setCoalesceWindow(coalesceWindow);
+            medicationOutboxProperties.setCoalesceMaxEvents(coalesceMaxEvents);
+        }
+    }
+
+    @Test
+    public void relay_ShouldRetryWithSameKey_WhenMedicationServiceIsUnavailable() throws Exception {
+        enqueue(1L, -2);
+        when(medicationRestClient.updateQuantities(anyList(), anyString()))
+                .thenThrow(new MedicationUnavailableException(HttpStatus.SERVICE_UNAVAILABLE, "UNAVAILABLE", 5005))
+                .thenReturn(List.of());
+        medicationOutboxService.relay();
+        assertEquals(1, countRows("medication_outbox"));
+        makeEventsDue();
+        medicationOutboxService.relay();
+        assertEquals(0, countRows("medication_outbox"));
+        ArgumentCaptor<String> keys = ArgumentCaptor.forClass(String.class);
+        verify(medicationRestClient, times(2)).updateQuantities(anyList(), keys.capture());
+        assertEquals(keys.getAllValues().get(0), keys.getAllValues().get(1));
+    }
+
+    @Test
+    public void relay_ShouldMoveEventToDeadLetters_WhenAttemptsAreExhausted() throws Exception {
+        enqueue(1L, -2);
+        when(medicationRestClient.updateQuantities(anyList(), anyString()))
+                .thenThrow(new MedicationUnavailableException(HttpStatus.SERVICE_UNAVAILABLE, "UNAVAILABLE", 5005));
+        medicationOutboxService.relay();
+        makeEventsDue();
+        medicationOutboxService.relay();
+        assertEquals(0, countRows("medication_outbox"));
+        assertEquals(1, countRows("medication_outbox_dead_letters"));
+    }
+
+    @Test
+    public void relay_ShouldDeliverEventsSeparately_WhenBatchIsRejected() throws Exception {
+        enqueue(1L, -2);
+        enqueue(2L, -3);
+        when(medicationRestClient.updateQuantities(eq(List.of(getChange(1L, -2), getChange(2L, -3))), anyString()))
+                .thenThrow(new MedicationBadRequestException(HttpStatus.BAD_REQUEST, "BAD REQUEST", 5003));
+        when(medicationRestClient.updateQuantities(eq(List.of(getChange(1L, -2))), anyString()))
+                .thenThrow(new MedicationBadRequestException(HttpStatus.BAD_REQUEST, "BAD REQUEST", 5003));
+        double rejectedEvents = getCount(MedicationOutboxService.REJECTED_EVENTS_METRIC);
+        medicationOutboxService.relay();
+        medicationOutboxService.relay();
+        assertEquals(0, countRows("medication_outbox"));
+        assertEquals(1, countRows("medication_outbox_dead_letters"));
+        assertEquals(1, getCount(MedicationOutboxService.REJECTED_EVENTS_METRIC) - rejectedEvents);
+        verify(medicationRestClient).updateQuantities(eq(List.of(getChange(2L, -3))), anyString());
+    }
+
+    @Test
+    public void relay_ShouldMoveEventToDeadLettersWithoutRetry_WhenChangeIsRejected() throws Exception {
+        enqueue(1L, -2);
+        enqueue(1L, 3);
+        when(medicationRestClient.updateQuantities(eq(List.of(getChange(1L, -2))), anyString()))
+                .thenThrow(new MedicationBadRequestException(HttpStatus.BAD_REQUEST, "BAD REQUEST", 5003));
+        medicationOutboxService.relay();
+        assertEquals(1, countRows("medication_outbox"));
+        assertEquals(1, countRows("medication_outbox_dead_letters"));
+        medicationOutboxService.relay();
+        assertEquals(0, countRows("medication_outbox"));
+        verify(medicationRestClient, times(1)).updateQuantities(eq(List.of(getChange(1L, -2))), anyString());
+        verify(medicationRestClient).updateQuantities(eq(List.of(getChange(1L, 3))), anyString());
+    }
+
+    @Test
+    public void tryLockRelay_ShouldReturnFalse_WhenAnotherRelayHoldsLock() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement preparedStatement = connection.prepareStatement("SELECT pg_advisory_xact_lock(?)")) {
+                preparedStatement.setLong(1, MedicationOutboxService.RELAY_LOCK_KEY);
+                preparedStatement.execute();
+            }
+            assertEquals(Boolean.FALSE, transactionTemplate.execute(status -> medicationOutboxService.tryLockRelay()));
+            connection.rollback();
+        }
+        assertEquals(Boolean.TRUE, transactionTemplate.execute(status -> medicationOutboxService.tryLockRelay()));
+    }
+
+    @Test
+    public void findExpiredBatchKeys_ShouldReturnOnlyBatchesWhoseLeaseExpired() throws Exception {
+        insertClaimed(1L, "EXPIRED", "now() - interval '1 minute'");
+        insertClaimed(2L, "LEASED", "now() + interval '1 minute'");
+        enqueue(3L, -1);
+        assertEquals(List.of("EXPIRED"), medicationOutboxService.findExpiredBatchKeys());
+    }
+
+    @Test
+    public void findReadyHeads_ShouldReturnDecrementsAtOnce_AndRefundsAfterWindow() {
+        enqueue(1L, 1);
+        enqueue(1L, -2);
+        enqueue(2L, -3);
+        List<MedicationOutboxService.OutboxHead> heads = medicationOutboxService.findReadyHeads(Duration.ofHours(1));
+        assertEquals(List.of(getHead(2L, -3)), withoutIds(heads));
+        heads = medicationOutboxService.findReadyHeads(Duration.ZERO);
+        assertEquals(List.of(getHead(1L, 1), getHead(2L, -3)), withoutIds(heads));
+    }
+
+    @Test
+    public void findReadyHeads_ShouldSkipMedication_WhenOldestEventIsClaimed() throws Exception {
+        insertClaimed(1L, "LEASED", "now() - interval '1 minute'");
+        enqueue(1L, -2);
+        assertEquals(List.of(), medicationOutboxService.findReadyHeads(Duration.ZERO));
+    }
+
+    @Test
+    public void claimHeads_ShouldClaimDecrementAlone() throws Exception {
+        enqueue(1L, -2);
+        enqueue(1L, 1);
+        assertEquals(1, medicationOutboxService.claimHeads("KEY",
+                medicationOutboxService.findReadyHeads(Duration.ZERO)));
+        assertEquals(Arrays.asList("KEY", null), getBatchKeys(1L));
+    }
+
+    @Test
+    public void claimHeads_ShouldClaimRefundsUpToFirstDecrement() throws Exception {
+        enqueue(1L, 1);
+        enqueue(1L, 2);
+        enqueue(1L, -5);
+        enqueue(1L, 3);
+        assertEquals(2, medicationOutboxService.claimHeads("KEY",
+                medicationOutboxService.findReadyHeads(Duration.ZERO)));
+        assertEquals(Arrays.asList("KEY", "KEY", null, null), getBatchKeys(1L));
+    }
+
+    @Test
+    public void lease_ShouldHideBatchUntilLeaseExpires() throws Exception {
+        insertClaimed(1L, "EXPIRED", "now() - interval '1 minute'");
+        medicationOutboxService.lease(List.of("EXPIRED"));
+        assertEquals(List.of(), medicationOutboxService.findExpiredBatchKeys());
+    }
+
+    private void enqueue(Long medicationId, int quantity) {
+        transactionTemplate.executeWithoutResult(status -> medicationOutboxService.enqueue(medicationId, quantity));
+    }
+
+    private void insertClaimed(Long medicationId, String batchKey, String nextAttemptAt) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement("INSERT INTO medication_outbox " +
+                     "(medication_id, quantity, batch_key, next_attempt_at) VALUES (?, -1, ?, " + nextAttemptAt + ")")) {
+            preparedStatement.setLong(1, medicationId);
+            preparedStatement.setString(2, batchKey);
+            preparedStatement.execute();
+        }
+    }
+
+    private List<String> getBatchKeys(Long medicationId) throws Exception {
+        List<String> batchKeys = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(
+                     "SELECT batch_key FROM medication_outbox WHERE medication_id = ? ORDER BY id")) {
+            preparedStatement.setLong(1, medicationId);
+            ResultSet resultSet = preparedStatement.executeQuery();
+            while (resultSet.next()) {
+                batchKeys.add(resultSet.getString(1));
+            }
+        }
+        return batchKeys;
+    }
+
+    private MedicationOutboxService.OutboxHead getHead(Long medicationId, int quantity) {
+        return MedicationOutboxService.OutboxHead.builder()
+                .medicationId(medicationId)
+                .quantity(quantity)
+                .build();
+    }
+
+    private List<MedicationOutboxService.OutboxHead> withoutIds(List<MedicationOutboxService.OutboxHead> heads) {
+        return heads.stream()
+                .map(head -> getHead(head.getMedicationId(), head.getQuantity()))
+                .toList();
+    }
+
+    private void makeEventsDue() throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement preparedStatement =
+                     connection.prepareStatement("UPDATE medication_outbox SET next_attempt_at = now()")) {
+            preparedStatement.execute();
+        }
+    }
+
+    private MedicationQuantityChangeDto getChange(Long medicationId, int quantity) {
+        return MedicationQuantityChangeDto.builder()
+                .medicationId(medicationId)
+                .quantity(quantity)
+                .build();
+    }
+
+    private double getCount(String metric) {
+        return meterRegistry.counter(metric).count();
+    }
+
+    private int countRows(String table) throws Exception {
+        try(Connection connection = dataSource.getConnection();
+            PreparedStatement preparedStatement = connection.prepareStatement("SELECT COUNT(*) FROM " + table);
+            ResultSet resultSet = preparedStatement.executeQuery()) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.zhuk.hospital.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"tasks.partitions.months-ahead=3", "tasks.partitions.retention-months=24"})
+public class TaskPartitionServiceTest {
+    @Autowired
+    TaskPartitionService taskPartitionService;
+    @Autowired
+    DataSource dataSource;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgreSQLContainer = new PostgreSQLContainer<>("postgres:15");
+
+    @BeforeEach
+    public void clearTables() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement preparedStatementTasks = connection.prepareStatement("DELETE FROM tasks")) {
+                preparedStatementTasks.execute();
+            }
+        }
+    }
+
+    @Test
+    public void maintainPartitions_ShouldCreatePartitionsAhead_WhenCalled() {
+        taskPartitionService.maintainPartitions();
+        List<String> partitions = taskPartitionService.findAttachedPartitions();
+        for (int i = 0; i <= 3; i++) {
+            assertTrue(partitions.contains(getPartitionName(YearMonth.now().plusMonths(i))));
+        }
+    }
+
+    @Test
+    public void findByDate_ShouldScanOnlyMatchingPartition_WhenFilteredByDate() throws Exception {
+        taskPartitionService.maintainPartitions();
+        try(Connection connection = dataSource.getConnection()) {
+            String explain = "EXPLAIN SELECT * FROM tasks WHERE date_time_of_issue >= ? AND date_time_of_issue < ?";
+            StringBuilder plan = new StringBuilder();
+            try(PreparedStatement preparedStatement = connection.prepareStatement(explain)) {
+                preparedStatement.setObject(1, LocalDate.now().atStartOfDay());
+                preparedStatement.setObject(2, LocalDate.now().plusDays(1).atStartOfDay());
+                try(ResultSet resultSet = preparedStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        plan.append(resultSet.getString(1));
+                    }
+                }
+            }
+            assertTrue(plan.toString().contains(getPartitionName(YearMonth.now())));
+            assertFalse(plan.toString().contains(getPartitionName(YearMonth.now().plusMonths(1))));
+            assertFalse(plan.toString().contains("tasks_default"));
+        }
+    }
+
+    @Test
+    public void createPartitionIfMissing_ShouldMoveRowsFromDefaultPartition_WhenRowsExist() throws Exception {
+        YearMonth month = YearMonth.now().plusYears(10);
+        try(Connection connection = dataSource.getConnection()) {
+            try(PreparedStatement preparedStatement = connection.prepareStatement(
+                    "INSERT INTO tasks (id, patient, medication_id, date_time_of_issue) " +
+                            "VALUES (gen_random_uuid(), 'PATIENT', 1, ?)")) {
+                preparedStatement.setObject(1, month.atDay(15).atStartOfDay());
+                preparedStatement.execute();
+            }
+            assertEquals(1, countRows(connection, "tasks_default"));
+
+            taskPartitionService.createPartitionIfMissing(month);
+            assertEquals(0, countRows(connection, "tasks_default"));
+            assertEquals(1, countRows(connection, getPartitionName(month)));
+            assertEquals(1, countRows(connection, "tasks"));
+        }
+    }
+
+    @Test
+    public void maintainPartitions_ShouldDetachPartition_WhenOlderThanRetention() throws Exception {
+        YearMonth month = YearMonth.now().minusMonths(30);
+        taskPartitionService.createPartitionIfMissing(month);
+        assertTrue(taskPartitionService.findAttachedPartitions().contains(getPartitionName(month)));
+
+        taskPartitionService.maintainPartitions();
+        assertFalse(taskPartitionService.findAttachedPartitions().contains(getPartitionName(month)));
+        try(Connection connection = dataSource.getConnection()) {
+            assertEquals(0, countRows(connection, getPartitionName(month)));
+        }
+    }
+
+    private int countRows(Connection connection, String table) throws Exception {
+        try(PreparedStatement preparedStatement = connection.prepareStatement("SELECT COUNT(*) FROM " + table);
+            ResultSet resultSet = preparedStatement.executeQuery()) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    private String getPartitionName(YearMonth month) {
+        return "tasks_" + month.format(DateTimeFormatter.ofPattern("yyyy_MM"));
+    }
+}
@@ -5,18 +5,30 @@ import com.zhuk.hospital.dto.CredentialsDto;
 import com.zhuk.hospital.dto.NewDepartmentDto;
 import com.zhuk.hospital.dto.NewTaskDto;
 import com.zhuk.hospital.dto.TaskDto;
+import com.zhuk.hospital.dto.TaskPageDto;
+import com.zhuk.hospital.entity.DepartmentEntity;
+import com.zhuk.hospital.entity.TaskEntity;
 import com.zhuk.hospital.entity.UserEntity;
 import com.zhuk.hospital.enums.UserRoleEnum;
+import com.zhuk.hospital.exception.task.TaskCursorInvalidException;
 import com.zhuk.hospital.exception.task.TaskNotFoundException;
 import com.zhuk.hospital.exception.task.TaskOutdatedException;
+import com.zhuk.hospital.repository.TaskRepository;
 import com.zhuk.hospital.security.CustomUserDetails;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
@@ -25,6 +37,9 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.test.context.support.WithSecurityContext;
 import org.springframework.security.test.context.support.WithSecurityContextFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
@@ -36,14 +51,22 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 @Testcontainers
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.jpa.properties.hibernate.generate_statistics=true",
+                "medication.outbox.relay-delay=PT1H"})
 @TaskServiceTest.WithCustomUserDetails
 public class TaskServiceTest {
     @Autowired
@@ -58,7 +81,13 @@ public class TaskServiceTest {
     @MockBean
     MedicationRestClient medicationRestClient;
     @Autowired
+    TaskRepository taskRepository;
+    @Autowired
     DataSource dataSource;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
 
     @Container
     @ServiceConnection
@@ -70,6 +99,13 @@ public class TaskServiceTest {
             try (PreparedStatement preparedStatementTasks = connection.prepareStatement("DELETE FROM tasks")) {
                 preparedStatementTasks.execute();
             }
+            try (PreparedStatement preparedStatementOutbox = connection.prepareStatement("DELETE FROM medication_outbox")) {
+                preparedStatementOutbox.execute();
+            }
+            try (PreparedStatement preparedStatementSchedules =
+                         connection.prepareStatement("DELETE FROM prescription_schedules")) {
+                preparedStatementSchedules.execute();
+            }
             try (PreparedStatement preparedStatementUsers = connection.prepareStatement("DELETE FROM users")) {
                 preparedStatementUsers.execute();
             }
@@ -93,7 +129,34 @@ public class TaskServiceTest {
     }
     @Test
     public void findAll_ShouldReturnTaskList_WhenDataExists() throws Exception {
+        NewTaskDto newTaskDto = NewTaskDto.builder()
+                .medicationId(1L)
+                .patient("PATIENT")
+                .amountOfDays(1)
+                .startDay(LocalDate.now())
+                .timeOfIssuing(List.of(LocalTime.NOON))
+                .departmentId(getDepartmentId())
+                .build();
+        List<TaskDto> saved = taskService.save(newTaskDto);
+        List<TaskDto> tasks = taskService.findAll(null, null, null, 100).getTasks();
+        assertEquals(saved, tasks);
+        assertEquals(1, tasks.size());
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void findAll_ShouldReturnOnlyTodayTasksWithoutSeqScan_WhenHistoryIsLarge() throws Exception {
         try(Connection connection = dataSource.getConnection()) {
+            String insertHistory = "INSERT INTO tasks (id, patient, medication_id, date_time_of_issue, department_id) " +
+                    "SELECT gen_random_uuid(), 'HISTORY', 1, now() - make_interval(mins => i), ? " +
+                    "FROM generate_series(1440 * 2, 1440 * 2 + 1000000) AS i";
+            try(PreparedStatement preparedStatement = connection.prepareStatement(insertHistory)) {
+                preparedStatement.setLong(1, getDepartmentId());
+                preparedStatement.execute();
+            }
+            try(PreparedStatement preparedStatement = connection.prepareStatement("ANALYZE tasks")) {
+                preparedStatement.execute();
+            }
             NewTaskDto newTaskDto = NewTaskDto.builder()
                     .medicationId(1L)
                     .patient("PATIENT")
@@ -103,54 +166,90 @@ public class TaskServiceTest {
                     .departmentId(getDepartmentId())
                     .build();
             taskService.save(newTaskDto);
-            List<TaskDto> tasks = taskService.findAll();
-            String query = "SELECT * FROM tasks";
-            PreparedStatement preparedStatement = connection.prepareStatement(query);
-            ResultSet resultSet = preparedStatement.executeQuery();
-            while (resultSet.next()) {
-                TaskDto dto = TaskDto.builder()
-                        .id(UUID.fromString(resultSet.getString("id")))
-                        .dateTimeOfIssue(resultSet.getTimestamp("date_time_of_issue").toLocalDateTime())
-                        .patient(resultSet.getString("patient"))
-                        .medicationId(resultSet.getLong("medication_id"))
-                        .build();
-                assertTrue(tasks.contains(dto));
-            }
+            List<TaskDto> tasks = taskService.findAll(null, null, null, 100).getTasks();
             assertEquals(1, tasks.size());
+            assertEquals("PATIENT", tasks.get(0).getPatient());
+
+            String explain = "EXPLAIN SELECT * FROM tasks WHERE department_id IN (?) " +
+                    "AND date_time_of_issue >= ? AND date_time_of_issue < ?";
+            try(PreparedStatement preparedStatement = connection.prepareStatement(explain)) {
+                preparedStatement.setLong(1, getDepartmentId());
+                preparedStatement.setObject(2, LocalDate.now().atStartOfDay());
+                preparedStatement.setObject(3, LocalDate.now().plusDays(1).atStartOfDay());
+                ResultSet resultSet = preparedStatement.executeQuery();
+                StringBuilder plan = new StringBuilder();
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1));
+                }
+                assertFalse(plan.toString().contains("Seq Scan"));
+            }
         }
     }
 
     @Test
-    public void findById_ShouldReturnDto_WhenDataExists() throws Exception {
-        try(Connection connection = dataSource.getConnection()) {
-            NewTaskDto newTaskDto = NewTaskDto.builder()
-                    .medicationId(1L)
-                    .patient("PATIENT")
-                    .amountOfDays(1)
-                    .startDay(LocalDate.now())
-                    .timeOfIssuing(List.of(LocalTime.NOON))
-                    .departmentId(getDepartmentId())
-                    .build();
-            taskService.save(newTaskDto);
-            TaskDto actual = taskService.findById(getTaskId(newTaskDto));
-            String query = "SELECT * FROM tasks";
-            PreparedStatement preparedStatement = connection.prepareStatement(query);
-            ResultSet resultSet = preparedStatement.executeQuery();
-            while (resultSet.next()) {
-                TaskDto dto = TaskDto.builder()
-                        .id(UUID.fromString(resultSet.getString("id")))
-                        .dateTimeOfIssue(resultSet.getTimestamp("date_time_of_issue").toLocalDateTime())
-                        .patient(resultSet.getString("patient"))
-                        .medicationId(resultSet.getLong("medication_id"))
-                        .build();
-                assertEquals(actual.getId(), dto.getId());
-                assertEquals(actual.getMedicationId(), dto.getMedicationId());
-                assertEquals(actual.getDateTimeOfIssue(), dto.getDateTimeOfIssue());
-                assertEquals(actual.getPatient(), dto.getPatient());
-            }
+    public void findAll_ShouldReturnAllTasksPageByPage_WhenCursorIsFollowed() throws Exception {
+        NewTaskDto newTaskDto = NewTaskDto.builder()
+                .medicationId(1L)
+                .patient("PATIENT")
+                .amountOfDays(3)
+                .startDay(LocalDate.now())
+                .timeOfIssuing(List.of(LocalTime.of(8, 0), LocalTime.NOON, LocalTime.of(20, 0)))
+                .departmentId(getDepartmentId())
+                .build();
+        taskService.save(newTaskDto);
+        LocalDateTime from = LocalDate.now().atStartOfDay();
+        LocalDateTime to = from.plusDays(3);
+        List<TaskDto> tasks = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            TaskPageDto page = taskService.findAll(from, to, cursor, 2);
+            assertTrue(page.getTasks().size() <= 2);
+            tasks.addAll(page.getTasks());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+        assertEquals(5, pages);
+        assertEquals(9, tasks.size());
+        assertEquals(9, tasks.stream().map(TaskDto::getId).distinct().count());
+        for (int i = 1; i < tasks.size(); i++) {
+            assertFalse(tasks.get(i).getDateTimeOfIssue().isBefore(tasks.get(i - 1).getDateTimeOfIssue()));
         }
     }
 
+    @Test
+    public void findAll_ShouldThrowBadRequest_WhenCursorIsNotValid() {
+        assertThrows(TaskCursorInvalidException.class,
+                () -> taskService.findAll(null, null, "not-a-cursor", 100));
+    }
+
+    @Test
+    public void findById_ShouldReturnDto_WhenDataExists() throws Exception {
+        NewTaskDto newTaskDto = NewTaskDto.builder()
+                .medicationId(1L)
+                .patient("PATIENT")
+                .amountOfDays(1)
+                .startDay(LocalDate.now())
+                .timeOfIssuing(List.of(LocalTime.NOON))
+                .departmentId(getDepartmentId())
+                .build();
+        TaskDto saved = taskService.save(newTaskDto).get(0);
+        TaskDto actual = taskService.findById(saved.getId());
+        assertEquals(saved.getId(), actual.getId());
+        assertEquals(newTaskDto.getMedicationId(), actual.getMedicationId());
+        assertEquals(LocalDate.now().atTime(LocalTime.NOON), actual.getDateTimeOfIssue());
+        assertEquals(newTaskDto.getPatient(), actual.getPatient());
+    }
+
+    @Test
+    public void findById_ShouldReturnDto_WhenTaskIsStoredAsRow() throws Exception {
+        insertStoredTask("STORED");
+        UUID id = getTaskId(NewTaskDto.builder().patient("STORED").build());
+        TaskDto actual = taskService.findById(id);
+        assertEquals(id, actual.getId());
+        assertEquals("STORED", actual.getPatient());
+    }
+
     @Test
     public void findById_ShouldThrowNotFound_WhenDoesntExist() throws Exception {
         assertThrows(TaskNotFoundException.class, () -> taskService.findById(UUID.randomUUID()));
@@ -171,30 +270,216 @@ public class TaskServiceTest {
         }
     }
 
+    @ParameterizedTest
+    @ValueSource(ints = {10, 100, 10000})
+    public void save_ShouldStoreSingleSchedule_WhenScheduleIsLong(int amountOfDays) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        NewTaskDto newTaskDto = NewTaskDto.builder()
+                .medicationId(1L)
+                .patient("PATIENT")
+                .amountOfDays(amountOfDays)
+                .startDay(LocalDate.now())
+                .timeOfIssuing(List.of(LocalTime.NOON))
+                .departmentId(getDepartmentId())
+                .build();
+        statistics.clear();
+        List<TaskDto> tasks = taskService.save(newTaskDto);
+        assertEquals(amountOfDays, tasks.size());
+        assertEquals(1, statistics.getEntityInsertCount());
+        assertEquals(0, countRows("tasks"));
+    }
+
+    @Test
+    public void saveAll_ShouldInsertTasksInJdbcBatches_WhenManyTasksAreStored() throws Exception {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        Statistics statistics = sessionFactory.getStatistics();
+        int batchSize = sessionFactory.getSessionFactoryOptions().getJdbcBatchSize();
+        int batches = 10;
+        Long departmentId = getDepartmentId();
+        transactionTemplate.executeWithoutResult(status -> {
+            DepartmentEntity department = departmentService.getEntityByIdOrThrowException(departmentId);
+            List<TaskEntity> tasks = new ArrayList<>();
+            for (int i = 0; i < batchSize * batches; i++) {
+                tasks.add(TaskEntity.builder()
+                        .patient("PATIENT")
+                        .medicationId(1L)
+                        .dateTimeOfIssue(LocalDate.now().atTime(LocalTime.NOON).plusMinutes(i))
+                        .department(department)
+                        .build());
+            }
+            statistics.clear();
+            taskRepository.saveAll(tasks);
+            taskRepository.flush();
+        });
+        assertTrue(batchSize > 1);
+        assertEquals(batchSize * batches, statistics.getEntityInsertCount());
+        assertEquals(batches, statistics.getPrepareStatementCount());
+        assertEquals(batchSize * batches, countRows("tasks"));
+    }
+
+    @Test
+    public void save_ShouldEnqueueStockChange_WhenTransactionCommits() throws Exception {
+        NewTaskDto newTaskDto = NewTaskDto.builder()
+                .medicationId(1L)
+                .patient("PATIENT")
+                .amountOfDays(2)
+                .startDay(LocalDate.now())
+                .timeOfIssuing(List.of(LocalTime.NOON, LocalTime.MIDNIGHT))
+                .departmentId(getDepartmentId())
+                .build();
+        taskService.save(newTaskDto);
+        assertEquals(List.of(-4), getOutboxQuantities(1L));
+        verifyNoInteractions(medicationRestClient);
+    }
+
+    @Test
+    public void save_ShouldNotEnqueueStockChange_WhenTransactionRollsBack() throws Exception {
+        NewTaskDto newTaskDto = NewTaskDto.builder()
+                .medicationId(1L)
+                .patient("PATIENT")
+                .amountOfDays(1)
+                .startDay(LocalDate.now())
+                .timeOfIssuing(List.of(LocalTime.NOON))
+                .departmentId(getDepartmentId())
+                .build();
+        transactionTemplate.executeWithoutResult(status -> {
+            taskService.save(newTaskDto);
+            status.setRollbackOnly();
+        });
+        assertEquals(0, countRows("medication_outbox"));
+        assertEquals(0, countRows("prescription_schedules"));
+    }
+
+    @Test
+    public void save_ShouldListTodayOccurrencesInDepartment_UntilTheyAreCancelled() throws Exception {
+        NewTaskDto newTaskDto = NewTaskDto.builder()
+                .medicationId(1L)
+                .patient("PATIENT")
+                .amountOfDays(30)
+                .startDay(LocalDate.now())
+                .timeOfIssuing(List.of(LocalTime.of(8, 0), LocalTime.NOON, LocalTime.of(20, 0)))
+                .departmentId(getDepartmentId())
+                .build();
+        List<TaskDto> saved = taskService.save(newTaskDto);
+        assertEquals(saved.subList(0, 3), departmentService.findById(getDepartmentId()).getTasks());
+        taskService.delete(saved.get(1).getId());
+        assertEquals(List.of(saved.get(0), saved.get(2)), departmentService.findById(getDepartmentId()).getTasks());
+        assertEquals(List.of(saved.get(0), saved.get(2)), departmentService.findAll().get(0).getTasks());
+    }
+
+    @Test
+    public void delete_ShouldEnqueueRestock_WhenTaskIsInFuture() throws Exception {
+        NewTaskDto newTaskDto = NewTaskDto.builder()
+                .medicationId(1L)
+                .patient("PATIENT")
+                .amountOfDays(2)
+                .startDay(LocalDate.now())
+                .timeOfIssuing(List.of(LocalTime.NOON))
+                .departmentId(getDepartmentId())
+                .build();
+        List<TaskDto> saved = taskService.save(newTaskDto);
+        taskService.delete(saved.get(1).getId());
+        assertEquals(List.of(-2, 1), getOutboxQuantities(1L));
+        verifyNoInteractions(medicationRestClient);
+    }
+
+    @Test
+    public void delete_ShouldCancelOccurrence_WhenTaskComesFromSchedule() throws Exception {
+        NewTaskDto newTaskDto = NewTaskDto.builder()
+                .medicationId(1L)
+                .patient("PATIENT")
+                .amountOfDays(1)
+                .startDay(LocalDate.now())
+                .timeOfIssuing(List.of(LocalTime.NOON, LocalTime.MAX.withNano(0)))
+                .departmentId(getDepartmentId())
+                .build();
+        List<TaskDto> saved = taskService.save(newTaskDto);
+        taskService.delete(saved.get(0).getId());
+        List<TaskDto> tasks = taskService.findAll(null, null, null, 100).getTasks();
+        assertEquals(List.of(saved.get(1)), tasks);
+        assertEquals(1, countRows("prescription_schedule_exceptions"));
+        assertThrows(TaskNotFoundException.class, () -> taskService.findById(saved.get(0).getId()));
+    }
+
     @Test
     public void delete_ShouldDeleteTask_WhenHappyPath() throws Exception {
+        insertStoredTask("PATIENT");
+        int countBeforeDeletion = countRows("tasks");
+        taskService.delete(getTaskId(NewTaskDto.builder().patient("PATIENT").build()));
+        int countAfterDeletion = countRows("tasks");
+        assertEquals(1, countBeforeDeletion);
+        assertEquals(0, countAfterDeletion);
+    }
+
+    @Test
+    public void delete_ShouldExecuteFixedNumberOfStatements_WhenDepartmentHasManyTasks() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<Long> statementCounts = new ArrayList<>();
+        for (int amountOfTasks : List.of(1, 1000)) {
+            try(Connection connection = dataSource.getConnection()) {
+                try(PreparedStatement preparedStatement = connection.prepareStatement("DELETE FROM tasks")) {
+                    preparedStatement.execute();
+                }
+                String insertTasks = "INSERT INTO tasks (id, patient, medication_id, date_time_of_issue, department_id) " +
+                        "SELECT gen_random_uuid(), 'OTHER', 1, now() + make_interval(secs => i), ? " +
+                        "FROM generate_series(1, ?) AS i";
+                try(PreparedStatement preparedStatement = connection.prepareStatement(insertTasks)) {
+                    preparedStatement.setLong(1, getDepartmentId());
+                    preparedStatement.setInt(2, amountOfTasks);
+                    preparedStatement.execute();
+                }
+            }
+            insertStoredTask("PATIENT");
+            UUID id = getTaskId(NewTaskDto.builder().patient("PATIENT").build());
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+            try {
+                clearInvocations(departmentService);
+                statistics.clear();
+                taskService.delete(id);
+                taskService.findAll(null, null, null, 100);
+                statementCounts.add(statistics.getPrepareStatementCount());
+                verify(departmentService, times(1)).findAllIds();
+            } finally {
+                RequestContextHolder.resetRequestAttributes();
+            }
+        }
+        assertEquals(statementCounts.get(0), statementCounts.get(1));
+    }
+
+    private void insertStoredTask(String patient) throws Exception {
         try(Connection connection = dataSource.getConnection()) {
-            NewTaskDto newTaskDto = NewTaskDto.builder()
-                    .medicationId(1L)
-                    .patient("PATIENT")
-                    .amountOfDays(1)
-                    .startDay(LocalDate.now())
-                    .timeOfIssuing(List.of(LocalTime.NOON))
-                    .departmentId(getDepartmentId())
-                    .build();
-            taskService.save(newTaskDto);
-            String query = "SELECT COUNT(id) FROM tasks";
+            String query = "INSERT INTO tasks (id, patient, medication_id, date_time_of_issue, department_id) " +
+                    "VALUES (gen_random_uuid(), ?, 1, ?, ?)";
             PreparedStatement preparedStatement = connection.prepareStatement(query);
-            ResultSet resultSetBeforeDeletion = preparedStatement.executeQuery();
-            resultSetBeforeDeletion.next();
-            int countBeforeDeletion = resultSetBeforeDeletion.getInt(1);
-            taskService.delete(getTaskId(newTaskDto));
-            ResultSet resultSetAfterDeletion = preparedStatement.executeQuery();
-            resultSetAfterDeletion.next();
-            int countAfterDeletion = resultSetAfterDeletion.getInt(1);
-            assertEquals(1, countBeforeDeletion);
-            assertEquals(0, countAfterDeletion);
+            preparedStatement.setString(1, patient);
+            preparedStatement.setObject(2, LocalDate.now().atTime(LocalTime.NOON));
+            preparedStatement.setLong(3, getDepartmentId());
+            preparedStatement.execute();
+        }
+    }
+
+    private int countRows(String table) throws Exception {
+        try(Connection connection = dataSource.getConnection();
+            PreparedStatement preparedStatement = connection.prepareStatement("SELECT COUNT(*) FROM " + table);
+            ResultSet resultSet = preparedStatement.executeQuery()) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    private List<Integer> getOutboxQuantities(Long medicationId) throws Exception {
+        List<Integer> quantities = new ArrayList<>();
+        try(Connection connection = dataSource.getConnection();
+            PreparedStatement preparedStatement = connection.prepareStatement(
+                    "SELECT quantity FROM medication_outbox WHERE medication_id = ? ORDER BY id")) {
+            preparedStatement.setLong(1, medicationId);
+            try(ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    quantities.add(resultSet.getInt(1));
+                }
+            }
         }
+        return quantities;
     }
 
     private Long getDepartmentId() throws Exception {
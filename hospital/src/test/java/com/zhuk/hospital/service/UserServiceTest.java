@@ -1,11 +1,19 @@
 package com.zhuk.hospital.service;
 
 import com.zhuk.hospital.dto.CredentialsDto;
+import com.zhuk.hospital.dto.DepartmentDto;
+import com.zhuk.hospital.dto.NewDepartmentDto;
 import com.zhuk.hospital.dto.UserDto;
 import com.zhuk.hospital.entity.DepartmentEntity;
+import com.zhuk.hospital.entity.TaskEntity;
 import com.zhuk.hospital.enums.UserRoleEnum;
 import com.zhuk.hospital.exception.user.UserAlreadyExistsException;
 import com.zhuk.hospital.exception.user.UserNotFoundException;
+import com.zhuk.hospital.security.CustomUserDetails;
+import com.zhuk.hospital.security.CustomUserDetailsService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,13 +37,20 @@ import java.util.UUID;
 import static org.junit.jupiter.api.Assertions.*;
 
 @Testcontainers
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 public class UserServiceTest {
     @Autowired
     @SpyBean
     UserService userService;
     @Autowired
     DataSource dataSource;
+    @Autowired
+    DepartmentService departmentService;
+    @Autowired
+    CustomUserDetailsService customUserDetailsService;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
 
     @Container
     @ServiceConnection
@@ -44,6 +59,9 @@ public class UserServiceTest {
     @BeforeEach
     public void clearTables() throws Exception {
         try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement preparedStatementTasks = connection.prepareStatement("DELETE FROM tasks")) {
+                preparedStatementTasks.execute();
+            }
             try (PreparedStatement preparedStatementUserDepartment =
                          connection.prepareStatement("DELETE FROM user_department")) {
                 preparedStatementUserDepartment.execute();
@@ -312,4 +330,57 @@ public class UserServiceTest {
             }
         }
     }
+
+    @Test
+    public void findAll_ShouldNotIssueQueryPerUser_WhenManyUsersExist() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        for (int i = 0; i < 5; i++) {
+            createUserWithDepartmentTasks("USER" + i, 3);
+        }
+        statistics.clear();
+        List<UserDto> users = userService.findAll();
+        assertEquals(5, users.size());
+        users.forEach(user -> assertEquals(3, user.getDepartments().get(0).getTasks().size()));
+        assertTrue(statistics.getPrepareStatementCount() <= 3);
+    }
+
+    @Test
+    public void loadUserByUsername_ShouldJoinDepartmentsWithoutTasks_WhenAuthenticating() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        createUserWithDepartmentTasks("USER", 3);
+        statistics.clear();
+        CustomUserDetails userDetails = (CustomUserDetails) customUserDetailsService.loadUserByUsername("USER");
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getEntityStatistics(DepartmentEntity.class.getName()).getLoadCount());
+        assertEquals(1, userDetails.getDepartmentIds().size());
+        assertEquals(0, statistics.getEntityStatistics(TaskEntity.class.getName()).getLoadCount());
+    }
+
+    private void createUserWithDepartmentTasks(String username, int amountOfTasks) throws Exception {
+        userService.saveUser(CredentialsDto.builder()
+                .username(username)
+                .password("PASS".toCharArray())
+                .role(UserRoleEnum.ROLE_USER.name())
+                .build());
+        DepartmentDto department = departmentService.save(NewDepartmentDto.builder()
+                .name(username + "_DEP")
+                .description("DESC")
+                .build());
+        try (Connection connection = dataSource.getConnection()) {
+            String associate = "INSERT INTO user_department (user_id, department_id) " +
+                    "SELECT id, ? FROM users WHERE username = ?";
+            try (PreparedStatement preparedStatement = connection.prepareStatement(associate)) {
+                preparedStatement.setLong(1, department.getId());
+                preparedStatement.setString(2, username);
+                preparedStatement.execute();
+            }
+            String insertTasks = "INSERT INTO tasks (id, patient, medication_id, date_time_of_issue, department_id) " +
+                    "SELECT gen_random_uuid(), 'PATIENT', 1, now(), ? FROM generate_series(1, ?)";
+            try (PreparedStatement preparedStatement = connection.prepareStatement(insertTasks)) {
+                preparedStatement.setLong(1, department.getId());
+                preparedStatement.setInt(2, amountOfTasks);
+                preparedStatement.execute();
+            }
+        }
+    }
 }
@@ -1,15 +1,25 @@
 package com.zhuk.medication;
 
 import com.zhuk.medication.config.AppConfig;
+import com.zhuk.medication.config.AuthenticationCacheConfig;
+import com.zhuk.medication.config.CatalogConfig;
+import com.zhuk.medication.config.IdempotencyConfig;
 import com.zhuk.medication.config.LiquibaseConfig;
+import com.zhuk.medication.config.ReservationConfig;
+import com.zhuk.medication.config.TokenConfig;
+import com.zhuk.medication.config.UserDetailsCacheConfig;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.info.Info;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @OpenAPIDefinition(info = @Info(title = "Medication API", version = "1.0"))
-@EnableConfigurationProperties({AppConfig.class, LiquibaseConfig.class})
+@EnableScheduling
+@EnableConfigurationProperties({AppConfig.class, LiquibaseConfig.class, ReservationConfig.class,
+        IdempotencyConfig.class, AuthenticationCacheConfig.class, TokenConfig.class,
+        UserDetailsCacheConfig.class, CatalogConfig.class})
 @SpringBootApplication
 public class MedicationApplication {
 	public static void main(String[] args) {
@@ -0,0 +1,13 @@
+package com.zhuk.medication.config;
+
+import lombok.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Value
+@ConfigurationProperties("security.authentication-cache")
+public class AuthenticationCacheConfig {
+    long maxSize;
+    Duration ttl;
+}
@@ -0,0 +1,12 @@
+package com.zhuk.medication.config;
+
+import lombok.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Value
+@ConfigurationProperties("medication.catalog")
+public class CatalogConfig {
+    int upsertBatchSize;
+    int importMaxReportedRejects;
+    int maxIdsPerRequest;
+}
@@ -0,0 +1,14 @@
+package com.zhuk.medication.config;
+
+import lombok.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Value
+@ConfigurationProperties("medication.reservations")
+public class ReservationConfig {
+    Duration defaultTtl;
+    Duration maxTtl;
+    int sweepBatchSize;
+}
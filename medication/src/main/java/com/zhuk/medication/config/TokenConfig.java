@@ -0,0 +1,16 @@
+package com.zhuk.medication.config;
+
+import lombok.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Value
+@ConfigurationProperties("security.token")
+public class TokenConfig {
+    String secret;
+    Duration ttl;
+    Duration maxLifetime;
+    Duration versionCacheTtl;
+    long versionCacheMaxSize;
+}
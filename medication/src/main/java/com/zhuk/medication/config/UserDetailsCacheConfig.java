@@ -0,0 +1,16 @@
+package com.zhuk.medication.config;
+
+import lombok.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Value
+@ConfigurationProperties("security.user-details-cache")
+public class UserDetailsCacheConfig {
+    long maxSize;
+    Duration ttl;
+    boolean listenerEnabled;
+    Duration listenerPollTimeout;
+    Duration listenerReconnectDelay;
+}
@@ -0,0 +1,50 @@
+package com.zhuk.medication.controller;
+
+import com.zhuk.medication.dto.CredentialsDto;
+import com.zhuk.medication.dto.TokenDto;
+import com.zhuk.medication.service.AuthService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/auth")
+public class AuthController {
+    private final AuthService authService;
+
+    @PostMapping("/login")
+    @Operation(summary = "Exchange username and password for a short-lived access token")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Token is issued, send it as 'Authorization: Bearer'."),
+            @ApiResponse(responseCode = "401", description = "Error code 8004: Username or password is incorrect.")
+    })
+    public ResponseEntity<TokenDto> login(@RequestBody CredentialsDto credentialsDto) {
+        return ResponseEntity.ok(authService.login(credentialsDto));
+    }
+
+    @PostMapping("/refresh")
+    @Operation(summary = "Issue a new access token for the current user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "New token is issued."),
+            @ApiResponse(responseCode = "401", description = "User is not authorized.<br>" +
+                    "Error code 8005: Login is older than the maximum token lifetime, log in again.")
+    })
+    public ResponseEntity<TokenDto> refresh() {
+        return ResponseEntity.ok(authService.refresh());
+    }
+
+    @PostMapping("/revoke")
+    @Operation(summary = "Revoke all access tokens of the current user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "All previously issued tokens are revoked."),
+            @ApiResponse(responseCode = "401", description = "User is not authorized.")
+    })
+    public ResponseEntity<Void> revoke() {
+        authService.revoke();
+        return ResponseEntity.noContent().build();
+    }
+}
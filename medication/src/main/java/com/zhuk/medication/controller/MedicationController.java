@@ -1,17 +1,34 @@
 package com.zhuk.medication.controller;
 
+import com.zhuk.medication.dto.ImportResultDto;
 import com.zhuk.medication.dto.MedicationDto;
+import com.zhuk.medication.dto.MedicationFilterDto;
+import com.zhuk.medication.dto.MedicationPageDto;
 import com.zhuk.medication.dto.NewMedicationDto;
+import com.zhuk.medication.dto.QuantityChangeDto;
+import com.zhuk.medication.dto.QuantityChangeResultDto;
 import com.zhuk.medication.dto.UpdateQuantityDto;
+import com.zhuk.medication.enums.ApiMessageEnum;
+import com.zhuk.medication.enums.ErrorCodeEnum;
+import com.zhuk.medication.enums.ImportFormatEnum;
+import com.zhuk.medication.enums.MedicationTypeEnum;
+import com.zhuk.medication.exception.medication.IdempotencyKeyInvalidException;
+import com.zhuk.medication.service.MedicationImportService;
 import com.zhuk.medication.service.MedicationService;
+import com.zhuk.medication.utils.ErrorCodeHelper;
+import com.zhuk.medication.utils.MessageSourceWrapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -19,7 +36,14 @@ import java.util.Map;
 @RequiredArgsConstructor
 @RequestMapping("/api/medication")
 public class MedicationController {
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    // the key is stored as username (up to 64) + ":" + key in a varchar(192) column
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 127;
+    private static final String TEXT_CSV_VALUE = "text/csv";
     private final MedicationService medicationService;
+    private final MedicationImportService medicationImportService;
+    private final MessageSourceWrapper messageSourceWrapper;
+    private final ErrorCodeHelper errorCodeHelper;
 
     @Operation(summary = "Show all medication")
     @ApiResponses(value = {
@@ -31,6 +55,47 @@ public class MedicationController {
         return ResponseEntity.ok(medicationService.findAll());
     }
 
+    @Operation(summary = "Show several medications by provided ids in one request")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Requested medications available to the user are shown, " +
+                    "unknown ids are skipped."),
+            @ApiResponse(responseCode = "400", description = "Error code 7010: Too many ids are requested at once."),
+            @ApiResponse(responseCode = "401", description = "User is not authorized.")
+    })
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<MedicationDto>> findAllByIds(@RequestParam("ids") List<Long> ids) {
+        return ResponseEntity.ok(medicationService.findAllByIds(ids));
+    }
+
+    @Operation(summary = "Search medication by name, manufacturer, type, weight range and low stock, page by page")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page of matching medications available to the user is " +
+                    "shown, next_cursor points to the following page."),
+            @ApiResponse(responseCode = "401", description = "User is not authorized.")
+    })
+    @GetMapping("/search")
+    public ResponseEntity<MedicationPageDto> search(
+            @RequestParam(value = "name", required = false) String name,
+            @RequestParam(value = "name_prefix", required = false) String namePrefix,
+            @RequestParam(value = "manufacturer", required = false) String manufacturer,
+            @RequestParam(value = "type", required = false) MedicationTypeEnum type,
+            @RequestParam(value = "min_weight", required = false) Integer minWeight,
+            @RequestParam(value = "max_weight", required = false) Integer maxWeight,
+            @RequestParam(value = "max_quantity", required = false) Integer maxQuantity,
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @RequestParam(value = "size", defaultValue = "100") int size) {
+        MedicationFilterDto filter = MedicationFilterDto.builder()
+                .name(name)
+                .namePrefix(namePrefix)
+                .manufacturer(manufacturer)
+                .type(type)
+                .minWeight(minWeight)
+                .maxWeight(maxWeight)
+                .maxQuantity(maxQuantity)
+                .build();
+        return ResponseEntity.ok(medicationService.search(filter, cursor, size));
+    }
+
     @Operation(summary = "Show medication by provided id")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Medication requested is shown."),
@@ -88,17 +153,79 @@ public class MedicationController {
                         .build(Map.of("id", response.getId())))
                 .body(response);
     }
+    @Operation(summary = "Save or update many medications of the current user at once by name and weight")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "All medications provided are saved or updated."),
+            @ApiResponse(responseCode = "400", description = "A medication is invalid, nothing is saved. " +
+                    "The message names its index."),
+            @ApiResponse(responseCode = "401", description = "User is not authorized."),
+            @ApiResponse(responseCode = "404", description = "User doesn't exist.")
+    })
+    @PutMapping("/bulk")
+    public ResponseEntity<?> updateMedications(@RequestBody List<NewMedicationDto> dtos) {
+        medicationService.updateMedications(dtos);
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "Import medications of the current user from a CSV (with header) or NDJSON body, " +
+            "one record per line")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Valid rows are saved or updated, rejected rows are listed " +
+                    "with their line numbers."),
+            @ApiResponse(responseCode = "400", description = "Error code 7008: CSV header misses required columns."),
+            @ApiResponse(responseCode = "401", description = "User is not authorized.")
+    })
+    @PostMapping(value = "/import", consumes = {TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ImportResultDto> importMedications(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream body) {
+        ImportFormatEnum format = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+                ? ImportFormatEnum.NDJSON : ImportFormatEnum.CSV;
+        return ResponseEntity.ok(medicationImportService.importMedications(body, format));
+    }
+
+    @Operation(summary = "Update quantity of several medications at once: all changes are applied or none")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "All changes are applied, one result per change is shown in request order."),
+            @ApiResponse(responseCode = "400", description = "Error code 7003: There is not enough quantity for one of medications. " +
+                    "Error code 7010: One of changes has no medication_id or quantity. " +
+                    "Error code 7011: Idempotency key is too long."),
+            @ApiResponse(responseCode = "401", description = "User is not authorized."),
+            @ApiResponse(responseCode = "403", description = "Error code 7004: One of medications is connected to another user."),
+            @ApiResponse(responseCode = "404", description = "Error code 7001: One of medications doesn't exist"),
+            @ApiResponse(responseCode = "422", description = "Error code 7012: Idempotency key was used for another request.")
+    })
+    @PatchMapping
+    public ResponseEntity<List<QuantityChangeResultDto>> updateQuantities(
+            @RequestBody List<QuantityChangeDto> changes,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        validateIdempotencyKey(idempotencyKey);
+        return ResponseEntity.ok(medicationService.updateQuantities(changes, idempotencyKey));
+    }
+
     @Operation(summary = "Update quantity of medication by provided id: positive for increasing and negative for decreasing")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Medication provided is successfully updated."),
+            @ApiResponse(responseCode = "400", description = "Error code 7011: Idempotency key is too long."),
             @ApiResponse(responseCode = "401", description = "User is not authorized."),
             @ApiResponse(responseCode = "403", description = "Only admin can update medication in database.<br>" +
                     "Error code 7004: That medication is connected to another user."),
-            @ApiResponse(responseCode = "404", description = "Error code 7001: Medication with this is doesn't exists")
+            @ApiResponse(responseCode = "404", description = "Error code 7001: Medication with this is doesn't exists"),
+            @ApiResponse(responseCode = "422", description = "Error code 7012: Idempotency key was used for another request.")
     })
     @PatchMapping("/{id}")
-    public ResponseEntity<?> updateQuantityForMedication(@PathVariable("id") Long id, @RequestBody UpdateQuantityDto dto) {
-        medicationService.updateQuantity(id, dto);
+    public ResponseEntity<?> updateQuantityForMedication(@PathVariable("id") Long id, @RequestBody UpdateQuantityDto dto,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        validateIdempotencyKey(idempotencyKey);
+        medicationService.updateQuantity(id, dto, idempotencyKey);
         return ResponseEntity.ok().build();
     }
+
+    private void validateIdempotencyKey(String idempotencyKey) {
+        if(idempotencyKey != null && idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new IdempotencyKeyInvalidException(HttpStatus.BAD_REQUEST,
+                    messageSourceWrapper.getMessageCode(ApiMessageEnum.IDEMPOTENCY_KEY_INVALID,
+                            MAX_IDEMPOTENCY_KEY_LENGTH),
+                    errorCodeHelper.getCode(ErrorCodeEnum.IDEMPOTENCY_KEY_INVALID_CODE));
+        }
+    }
 }
@@ -0,0 +1,60 @@
+package com.zhuk.medication.controller;
+
+import com.zhuk.medication.dto.NewReservationDto;
+import com.zhuk.medication.dto.ReservationDto;
+import com.zhuk.medication.service.ReservationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/medication")
+public class ReservationController {
+    private final ReservationService reservationService;
+
+    @Operation(summary = "Hold quantity of medication by provided id until the reservation is committed, " +
+            "released or expired")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Quantity is reserved."),
+            @ApiResponse(responseCode = "400", description = "Error code 7003: There is not enough quantity.<br>" +
+                    "Error code 7006: Reservation with this key already exists for other medication or quantity.<br>" +
+                    "Error code 7007: Reservation needs a key of at most 127 characters and a positive quantity."),
+            @ApiResponse(responseCode = "401", description = "User is not authorized."),
+            @ApiResponse(responseCode = "403", description = "Error code 7004: That medication is connected to another user."),
+            @ApiResponse(responseCode = "404", description = "Error code 7001: Medication with this is doesn't exists")
+    })
+    @PostMapping("/{id}/reservations")
+    public ResponseEntity<ReservationDto> reserve(@PathVariable("id") Long id, @RequestBody NewReservationDto dto) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(reservationService.reserve(id, dto));
+    }
+
+    @Operation(summary = "Commit reservation by provided key, keeping its quantity taken")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Reservation is committed."),
+            @ApiResponse(responseCode = "401", description = "User is not authorized."),
+            @ApiResponse(responseCode = "403", description = "Error code 7004: That medication is connected to another user."),
+            @ApiResponse(responseCode = "404", description = "Error code 7005: Reservation doesn't exist or has expired.")
+    })
+    @PostMapping("/reservations/{key}/commit")
+    public ResponseEntity<?> commit(@PathVariable("key") String key) {
+        reservationService.commit(key);
+        return ResponseEntity.ok().build();
+    }
+
+    @Operation(summary = "Release reservation by provided key, returning its quantity")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Reservation is released or doesn't exist."),
+            @ApiResponse(responseCode = "401", description = "User is not authorized."),
+            @ApiResponse(responseCode = "403", description = "Error code 7004: That medication is connected to another user.")
+    })
+    @DeleteMapping("/reservations/{key}")
+    public ResponseEntity<?> release(@PathVariable("key") String key) {
+        reservationService.release(key);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,17 @@
+package com.zhuk.medication.dto;
+
+import com.zhuk.medication.enums.MedicationTypeEnum;
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class MedicationFilterDto {
+    String name;
+    String namePrefix;
+    String manufacturer;
+    MedicationTypeEnum type;
+    Integer minWeight;
+    Integer maxWeight;
+    Integer maxQuantity;
+}
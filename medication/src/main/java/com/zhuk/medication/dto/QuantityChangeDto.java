@@ -0,0 +1,16 @@
+package com.zhuk.medication.dto;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+@Value
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@Builder(toBuilder = true)
+@Jacksonized
+public class QuantityChangeDto {
+    Long medicationId;
+    Integer quantity;
+}
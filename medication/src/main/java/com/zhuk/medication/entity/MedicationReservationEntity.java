@@ -0,0 +1,25 @@
+package com.zhuk.medication.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+@Entity
+@Table(name = "medication_reservations")
+public class MedicationReservationEntity {
+    @Id
+    String reservationKey;
+    Long medicationId;
+    int quantity;
+    LocalDateTime expiresAt;
+}
@@ -23,6 +23,7 @@ public class UserEntity {
     private String password;
     @Enumerated(EnumType.STRING)
     private UserRoleEnum role;
+    private int tokenVersion;
     @OneToMany(mappedBy = "user", fetch = FetchType.EAGER)
     private List<MedicationEntity> medications;
 }
@@ -8,9 +8,23 @@ public enum ApiMessageEnum {
     MEDICATION_ALREADY_EXISTS("medication.already-exists"),
     MEDICATION_NOT_ENOUGH_QUANTITY("medication.not-enough-quantity"),
     MEDICATION_NO_RIGHTS("medication.no-rights"),
+    MEDICATION_RESERVATION_NOT_FOUND("medication.reservation.not-found"),
+    MEDICATION_RESERVATION_ALREADY_EXISTS("medication.reservation.already-exists"),
+    MEDICATION_RESERVATION_INVALID("medication.reservation.invalid"),
+    MEDICATION_IMPORT_INVALID("medication.import.invalid"),
+    MEDICATION_IMPORT_MALFORMED_ROW("medication.import.malformed-row"),
+    MEDICATION_IMPORT_INVALID_TYPE("medication.import.invalid-type"),
+    MEDICATION_IMPORT_INVALID_ROW("medication.import.invalid-row"),
+    MEDICATION_BULK_INVALID("medication.bulk.invalid"),
+    MEDICATION_BAD_REQUEST("medication.bad-request"),
+    MEDICATION_TOO_MANY_IDS("medication.too-many-ids"),
+    IDEMPOTENCY_KEY_INVALID("idempotency.key.invalid"),
+    IDEMPOTENCY_KEY_MISMATCH("idempotency.key.mismatch"),
     USER_ALREADY_EXISTS("security.user.already-exists"),
     USER_NOT_FOUND("security.user.not-found"),
-    USER_UNKNOWN_EXCEPTION("security.user.unknown-exception");
+    USER_UNKNOWN_EXCEPTION("security.user.unknown-exception"),
+    USER_BAD_CREDENTIALS("security.user.bad-credentials"),
+    USER_SESSION_EXPIRED("security.user.session-expired");
     private final String code;
     ApiMessageEnum(String code) {
         this.code = code;
@@ -8,9 +8,19 @@ public enum ErrorCodeEnum {
     MEDICATION_ALREADY_EXISTS_CODE(7002),
     MEDICATION_NOT_ENOUGH_QUANTITY_CODE(7003),
     MEDICATION_NO_RIGHTS_CODE(7004),
+    MEDICATION_RESERVATION_NOT_FOUND_CODE(7005),
+    MEDICATION_RESERVATION_ALREADY_EXISTS_CODE(7006),
+    MEDICATION_RESERVATION_INVALID_CODE(7007),
+    MEDICATION_IMPORT_INVALID_CODE(7008),
+    MEDICATION_BULK_INVALID_CODE(7009),
+    MEDICATION_BAD_REQUEST_CODE(7010),
+    IDEMPOTENCY_KEY_INVALID_CODE(7011),
+    IDEMPOTENCY_KEY_MISMATCH_CODE(7012),
     USER_NOT_FOUND_CODE(8001),
     USER_ALREADY_EXISTS_CODE(8002),
     USER_UNKNOWN_EXCEPTION_CODE(8003),
+    USER_BAD_CREDENTIALS_CODE(8004),
+    USER_SESSION_EXPIRED_CODE(8005),
     UNKNOWN_ERROR_CODE(9999);
     private final int code;
     ErrorCodeEnum(int code) {
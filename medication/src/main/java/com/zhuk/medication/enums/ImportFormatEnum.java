@@ -0,0 +1,6 @@
+package com.zhuk.medication.enums;
+
+public enum ImportFormatEnum {
+    CSV,
+    NDJSON
+}
@@ -0,0 +1,10 @@
+package com.zhuk.medication.exception.medication;
+
+import com.zhuk.medication.exception.BaseApiException;
+import org.springframework.http.HttpStatus;
+
+public class MedicationImportInvalidException extends BaseApiException {
+    public MedicationImportInvalidException(HttpStatus status, String message, int errorCode) {
+        super(status, message, errorCode);
+    }
+}
@@ -0,0 +1,10 @@
+package com.zhuk.medication.exception.medication;
+
+import com.zhuk.medication.exception.BaseApiException;
+import org.springframework.http.HttpStatus;
+
+public class MedicationReservationNotFoundException extends BaseApiException {
+    public MedicationReservationNotFoundException(HttpStatus status, String message, int errorCode) {
+        super(status, message, errorCode);
+    }
+}
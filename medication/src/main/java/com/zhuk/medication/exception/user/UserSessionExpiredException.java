@@ -0,0 +1,10 @@
+package com.zhuk.medication.exception.user;
+
+import com.zhuk.medication.exception.BaseApiException;
+import org.springframework.http.HttpStatus;
+
+public class UserSessionExpiredException extends BaseApiException {
+    public UserSessionExpiredException(HttpStatus status, String message, int errorCode) {
+        super(status, message, errorCode);
+    }
+}
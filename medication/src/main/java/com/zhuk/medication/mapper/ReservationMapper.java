@@ -0,0 +1,11 @@
+package com.zhuk.medication.mapper;
+
+import com.zhuk.medication.dto.ReservationDto;
+import com.zhuk.medication.entity.MedicationReservationEntity;
+import org.mapstruct.Mapper;
+import org.mapstruct.ReportingPolicy;
+
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface ReservationMapper {
+    ReservationDto map(MedicationReservationEntity medicationReservationEntity);
+}
@@ -0,0 +1,28 @@
+package com.zhuk.medication.repository;
+
+import com.zhuk.medication.entity.IdempotencyKeyEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKeyEntity, String> {
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (idempotency_key, request_hash, expires_at) " +
+            "VALUES (:key, :requestHash, :expiresAt) ON CONFLICT (idempotency_key) DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("key") String key, @Param("requestHash") String requestHash,
+                       @Param("expiresAt") LocalDateTime expiresAt);
+    @Modifying
+    @Query("UPDATE IdempotencyKeyEntity k SET k.response = :response WHERE k.idempotencyKey = :key")
+    void updateResponseByKey(@Param("key") String key, @Param("response") String response);
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_keys WHERE idempotency_key IN (" +
+            "SELECT idempotency_key FROM idempotency_keys WHERE expires_at <= :now LIMIT :limit)",
+            nativeQuery = true)
+    int deleteExpired(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
@@ -0,0 +1,9 @@
+package com.zhuk.medication.repository;
+
+import com.zhuk.medication.dto.NewMedicationDto;
+
+import java.util.List;
+
+public interface MedicationBulkRepository {
+    void upsertAllByUsername(List<NewMedicationDto> medications, String username);
+}
@@ -0,0 +1,33 @@
+package com.zhuk.medication.repository;
+
+import com.zhuk.medication.config.CatalogConfig;
+import com.zhuk.medication.dto.NewMedicationDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+public class MedicationBulkRepositoryImpl implements MedicationBulkRepository {
+    private static final String UPSERT_QUERY = "INSERT INTO medication " +
+            "(name, manufacturer, type, weight, quantity, additional_info, user_id) " +
+            "SELECT ?, ?, ?, ?, ?, ?, u.id FROM users u WHERE u.username = ? " +
+            "ON CONFLICT (name, weight, user_id) DO UPDATE SET manufacturer = EXCLUDED.manufacturer, " +
+            "type = EXCLUDED.type, quantity = EXCLUDED.quantity, additional_info = EXCLUDED.additional_info";
+    private final JdbcTemplate jdbcTemplate;
+    private final CatalogConfig catalogConfig;
+
+    @Override
+    public void upsertAllByUsername(List<NewMedicationDto> medications, String username) {
+        jdbcTemplate.batchUpdate(UPSERT_QUERY, medications, catalogConfig.getUpsertBatchSize(),
+                (preparedStatement, medication) -> {
+                    preparedStatement.setString(1, medication.getName());
+                    preparedStatement.setString(2, medication.getManufacturer());
+                    preparedStatement.setString(3, medication.getType());
+                    preparedStatement.setInt(4, medication.getWeight());
+                    preparedStatement.setInt(5, medication.getQuantity());
+                    preparedStatement.setString(6, medication.getAdditionalInfo());
+                    preparedStatement.setString(7, username);
+                });
+    }
+}
@@ -1,25 +1,62 @@
 package com.zhuk.medication.repository;
 
 import com.zhuk.medication.entity.MedicationEntity;
-import com.zhuk.medication.enums.MedicationTypeEnum;
+import com.zhuk.medication.entity.UserEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface MedicationRepository extends JpaRepository<MedicationEntity, Long> {
+public interface MedicationRepository extends JpaRepository<MedicationEntity, Long>, MedicationBulkRepository,
+        MedicationSearchRepository {
     @Modifying
-    @Query("UPDATE MedicationEntity m SET m.manufacturer = :manufacturer, m.type = :type, " +
-            "m.quantity = :quantity, m.additionalInfo = :additionalInfo " +
-            "WHERE m.name = :name AND m.weight = :weight")
-    void updateByNameAndWeight(String name, String manufacturer, int weight, int quantity, String additionalInfo,
-                    MedicationTypeEnum type);
+    @Query("UPDATE MedicationEntity m SET m.quantity = m.quantity + :delta " +
+            "WHERE m.id = :id AND m.quantity + :delta >= 0 " +
+            "AND m.user.id IN (SELECT u.id FROM UserEntity u WHERE u.username = :username)")
+    int addQuantityIfEnoughByIdAndUsername(Long id, String username, int delta);
     @Modifying
-    @Query("UPDATE MedicationEntity m SET m.quantity = :quantity WHERE m.id = :id")
-    void updateQuantityById(Long id, int quantity);
+    @Query("DELETE FROM MedicationEntity m " +
+            "WHERE m.id = :id AND m.user.id IN (SELECT u.id FROM UserEntity u WHERE u.username = :username)")
+    int deleteByIdAndUsername(Long id, String username);
+    @Query("SELECT m.quantity FROM MedicationEntity m WHERE m.id = :id")
+    int findQuantityById(Long id);
+    @Transactional
+    @Query(value = "INSERT INTO medication (name, manufacturer, type, weight, quantity, additional_info, user_id) " +
+            "SELECT :name, :manufacturer, :type, :weight, :quantity, :additionalInfo, u.id " +
+            "FROM users u WHERE u.username = :username " +
+            "ON CONFLICT (name, weight, user_id) DO UPDATE SET manufacturer = EXCLUDED.manufacturer, " +
+            "type = EXCLUDED.type, quantity = EXCLUDED.quantity, additional_info = EXCLUDED.additional_info " +
+            "RETURNING *",
+            nativeQuery = true)
+    Optional<MedicationEntity> upsertByUsername(@Param("name") String name, @Param("manufacturer") String manufacturer,
+                                                @Param("type") String type, @Param("weight") int weight,
+                                                @Param("quantity") int quantity,
+                                                @Param("additionalInfo") String additionalInfo,
+                                                @Param("username") String username);
+    @Transactional
+    @Query(value = "INSERT INTO medication (name, manufacturer, type, weight, quantity, additional_info, user_id) " +
+            "SELECT :name, :manufacturer, :type, :weight, :quantity, :additionalInfo, u.id " +
+            "FROM users u WHERE u.username = :username " +
+            "ON CONFLICT (name, weight, user_id) DO NOTHING " +
+            "RETURNING *",
+            nativeQuery = true)
+    Optional<MedicationEntity> insertIfAbsentByUsername(@Param("name") String name,
+                                                        @Param("manufacturer") String manufacturer,
+                                                        @Param("type") String type, @Param("weight") int weight,
+                                                        @Param("quantity") int quantity,
+                                                        @Param("additionalInfo") String additionalInfo,
+                                                        @Param("username") String username);
 
-    Optional<MedicationEntity> getMedicationEntityByNameAndWeight(String name, int weight);
+    Optional<MedicationEntity> findByIdAndUserUsername(Long id, String username);
+
+    boolean existsByIdAndUserUsername(Long id, String username);
+
+    List<MedicationEntity> findAllByIdInAndUser(Collection<Long> ids, UserEntity user);
 }
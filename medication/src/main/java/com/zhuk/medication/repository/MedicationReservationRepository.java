@@ -0,0 +1,40 @@
+package com.zhuk.medication.repository;
+
+import com.zhuk.medication.entity.MedicationReservationEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface MedicationReservationRepository extends JpaRepository<MedicationReservationEntity, String> {
+    @Modifying
+    @Query(value = "INSERT INTO medication_reservations (reservation_key, medication_id, quantity, expires_at) " +
+            "VALUES (:key, :medicationId, :quantity, :expiresAt) ON CONFLICT (reservation_key) DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("key") String key, @Param("medicationId") Long medicationId,
+                       @Param("quantity") int quantity, @Param("expiresAt") LocalDateTime expiresAt);
+    @Modifying
+    @Query("DELETE FROM MedicationReservationEntity r WHERE r.reservationKey = :key")
+    int deleteByKey(@Param("key") String key);
+    @Modifying
+    @Query(value = "WITH released AS (DELETE FROM medication_reservations WHERE reservation_key = :key " +
+            "RETURNING medication_id, quantity) " +
+            "UPDATE medication m SET quantity = m.quantity + r.quantity FROM released r " +
+            "WHERE m.id = r.medication_id",
+            nativeQuery = true)
+    int releaseByKey(@Param("key") String key);
+    @Modifying
+    @Query(value = "WITH expired AS (DELETE FROM medication_reservations WHERE reservation_key IN (" +
+            "SELECT reservation_key FROM medication_reservations WHERE expires_at <= :now " +
+            "ORDER BY expires_at LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+            "RETURNING medication_id, quantity), " +
+            "totals AS (SELECT medication_id, SUM(quantity) AS quantity FROM expired GROUP BY medication_id) " +
+            "UPDATE medication m SET quantity = m.quantity + t.quantity FROM totals t " +
+            "WHERE m.id = t.medication_id",
+            nativeQuery = true)
+    int releaseExpired(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
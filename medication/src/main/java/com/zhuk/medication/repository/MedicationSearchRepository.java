@@ -0,0 +1,10 @@
+package com.zhuk.medication.repository;
+
+import com.zhuk.medication.dto.MedicationFilterDto;
+import com.zhuk.medication.entity.MedicationEntity;
+
+import java.util.List;
+
+public interface MedicationSearchRepository {
+    List<MedicationEntity> search(MedicationFilterDto filter, String ownerUsername, Long afterId, int limit);
+}
@@ -0,0 +1,72 @@
+package com.zhuk.medication.repository;
+
+import com.zhuk.medication.dto.MedicationFilterDto;
+import com.zhuk.medication.entity.MedicationEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+@RequiredArgsConstructor
+public class MedicationSearchRepositoryImpl implements MedicationSearchRepository {
+    private static final char LIKE_ESCAPE = '\\';
+    private final EntityManager entityManager;
+
+    @Override
+    public List<MedicationEntity> search(MedicationFilterDto filter, String ownerUsername, Long afterId, int limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<MedicationEntity> query = criteriaBuilder.createQuery(MedicationEntity.class);
+        Root<MedicationEntity> medication = query.from(MedicationEntity.class);
+        // only filters that are set become predicates, so the planner can pick the matching index
+        List<Predicate> predicates = new ArrayList<>();
+        if(ownerUsername != null) {
+            predicates.add(criteriaBuilder.equal(medication.get("user").get("username"), ownerUsername));
+        }
+        if(filter.getName() != null) {
+            predicates.add(criteriaBuilder.like(criteriaBuilder.lower(medication.get("name")),
+                    "%" + escapeLike(filter.getName()) + "%", LIKE_ESCAPE));
+        }
+        if(filter.getNamePrefix() != null) {
+            predicates.add(criteriaBuilder.like(criteriaBuilder.lower(medication.get("name")),
+                    escapeLike(filter.getNamePrefix()) + "%", LIKE_ESCAPE));
+        }
+        if(filter.getManufacturer() != null) {
+            predicates.add(criteriaBuilder.like(criteriaBuilder.lower(medication.get("manufacturer")),
+                    "%" + escapeLike(filter.getManufacturer()) + "%", LIKE_ESCAPE));
+        }
+        if(filter.getType() != null) {
+            predicates.add(criteriaBuilder.equal(medication.get("type"), filter.getType()));
+        }
+        if(filter.getMinWeight() != null) {
+            predicates.add(criteriaBuilder.ge(medication.get("weight"), filter.getMinWeight()));
+        }
+        if(filter.getMaxWeight() != null) {
+            predicates.add(criteriaBuilder.le(medication.get("weight"), filter.getMaxWeight()));
+        }
+        if(filter.getMaxQuantity() != null) {
+            predicates.add(criteriaBuilder.le(medication.get("quantity"), filter.getMaxQuantity()));
+        }
+        if(afterId != null) {
+            predicates.add(criteriaBuilder.gt(medication.get("id"), afterId));
+        }
+        query.select(medication)
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(criteriaBuilder.asc(medication.get("id")));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private String escapeLike(String value) {
+        return value.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
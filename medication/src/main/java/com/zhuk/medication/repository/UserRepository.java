@@ -17,4 +17,9 @@ public interface UserRepository extends JpaRepository<UserEntity, Long> {
     @Query("UPDATE UserEntity u SET u.username = :username, u.password = :password WHERE u.username = :oldUsername")
     void updateByUsername(@Param("oldUsername")String oldUsername, @Param("username") String username,
                           @Param("password") String password);
+    @Query("SELECT u.tokenVersion FROM UserEntity u WHERE u.username = :username")
+    Optional<Integer> findTokenVersionByUsername(@Param("username") String username);
+    @Modifying
+    @Query("UPDATE UserEntity u SET u.tokenVersion = u.tokenVersion + 1 WHERE u.username = :username")
+    void incrementTokenVersionByUsername(@Param("username") String username);
 }
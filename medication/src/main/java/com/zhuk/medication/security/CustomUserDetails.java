@@ -5,18 +5,33 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public class CustomUserDetails implements UserDetails {
     private final String username;
     private final String password;
     private final List<GrantedAuthority> grantedAuthorities;
+    private final Instant authTime;
 
     public CustomUserDetails(UserEntity user) {
         this.username = user.getUsername();
         this.password = user.getPassword();
         this.grantedAuthorities = List.of(new SimpleGrantedAuthority(user.getRole().name()));
+        this.authTime = null;
+    }
+
+    public CustomUserDetails(TokenClaims claims) {
+        this.username = claims.getUsername();
+        this.password = null;
+        this.grantedAuthorities = List.of(new SimpleGrantedAuthority(claims.getRole()));
+        this.authTime = Instant.ofEpochSecond(claims.getAuthTime());
+    }
+
+    public Optional<Instant> getAuthTime() {
+        return Optional.ofNullable(authTime);
     }
 
     @Override
@@ -22,9 +22,14 @@ public class CustomUserDetailsService implements UserDetailsService {
     private final UserRepository userRepository;
     private final MessageSourceWrapper messageSourceWrapper;
     private final ErrorCodeHelper errorCodeHelper;
+    private final UserDetailsCache userDetailsCache;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        return userDetailsCache.get(username, this::loadCustomUserDetails);
+    }
+
+    private CustomUserDetails loadCustomUserDetails(String username) {
         Optional<UserEntity> userEntity = userRepository.findByUsername(username);
         return userEntity.map(CustomUserDetails::new)
                 .orElseThrow(() -> new UserNotFoundException(
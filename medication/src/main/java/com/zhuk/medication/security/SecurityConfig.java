@@ -6,6 +6,7 @@ import com.zhuk.medication.utils.ErrorCodeHelper;
 import com.zhuk.medication.utils.MessageSourceWrapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.Customizer;
@@ -16,6 +17,7 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 @Configuration
 @EnableWebSecurity
@@ -26,15 +28,20 @@ public class SecurityConfig {
     }
 
     @Bean
-    SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception{
+    SecurityFilterChain securityFilterChain(HttpSecurity http, TokenService tokenService) throws Exception{
         http
                 .authorizeHttpRequests(
                         (authorize) -> authorize
+                                .requestMatchers(HttpMethod.POST, "/api/auth/login")
+                                .permitAll()
+                                .requestMatchers("/api/auth/**")
+                                .authenticated()
                                 .requestMatchers("/api/medication/**")
                                 .hasAnyAuthority(UserRoleEnum.ROLE_USER.name(), UserRoleEnum.ROLE_ADMIN.name())
-                                .requestMatchers("/api/**").hasAuthority(UserRoleEnum.ROLE_ADMIN.name())
+                                .requestMatchers("/api/**", "/actuator/**").hasAuthority(UserRoleEnum.ROLE_ADMIN.name())
                                 .anyRequest().authenticated())
                 .csrf(AbstractHttpConfigurer::disable)
+                .addFilterBefore(new TokenAuthenticationFilter(tokenService), BasicAuthenticationFilter.class)
                 .httpBasic(Customizer.withDefaults())
                 .formLogin(Customizer.withDefaults());
         return http.build();
@@ -42,17 +49,19 @@ public class SecurityConfig {
 
     @Bean
     public AuthenticationProvider authenticationProvider(UserDetailsService userDetailsService,
-                                                         PasswordEncoder passwordEncoder) {
+                                                         PasswordEncoder passwordEncoder,
+                                                         AuthenticationCache authenticationCache) {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
         provider.setUserDetailsService(userDetailsService);
         provider.setPasswordEncoder(passwordEncoder);
-        return provider;
+        return new CachingAuthenticationProvider(provider, authenticationCache);
     }
 
     @Bean
     UserDetailsService userDetailsService(UserRepository userRepository,
                                           MessageSourceWrapper messageSourceWrapper,
-                                          ErrorCodeHelper errorCodeHelper) {
-        return new CustomUserDetailsService(userRepository, messageSourceWrapper, errorCodeHelper);
+                                          ErrorCodeHelper errorCodeHelper,
+                                          UserDetailsCache userDetailsCache) {
+        return new CustomUserDetailsService(userRepository, messageSourceWrapper, errorCodeHelper, userDetailsCache);
     }
 }
@@ -0,0 +1,19 @@
+package com.zhuk.medication.security;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+@Value
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@Builder
+@Jacksonized
+public class TokenClaims {
+    String username;
+    String role;
+    int version;
+    long authTime;
+    long expiresAt;
+}
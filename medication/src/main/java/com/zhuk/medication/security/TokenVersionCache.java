@@ -0,0 +1,33 @@
+package com.zhuk.medication.security;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zhuk.medication.config.TokenConfig;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.zhuk.medication.repository.UserRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+@Component
+public class TokenVersionCache {
+    private final LoadingCache<String, Optional<Integer>> cache;
+
+    public TokenVersionCache(TokenConfig tokenConfig, UserRepository userRepository) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tokenConfig.getVersionCacheMaxSize())
+                .expireAfterWrite(tokenConfig.getVersionCacheTtl())
+                .build(userRepository::findTokenVersionByUsername);
+    }
+
+    public Optional<Integer> get(String username) {
+        return cache.get(username);
+    }
+
+    public void invalidate(String username) {
+        cache.invalidate(username);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,78 @@
+package com.zhuk.medication.security;
+
+import com.zhuk.medication.config.UserDetailsCacheConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+@Component
+@RequiredArgsConstructor
+public class UserCacheInvalidationListener {
+    private final UserDetailsCacheConfig userDetailsCacheConfig;
+    private final JdbcConnectionDetails jdbcConnectionDetails;
+    private final UserCacheInvalidator userCacheInvalidator;
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    @PostConstruct
+    public void start() {
+        if(!userDetailsCacheConfig.isListenerEnabled()) {
+            return;
+        }
+        running = true;
+        listenerThread = new Thread(this::listen, "user-cache-invalidation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if(listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    private void listen() {
+        int pollTimeout = (int) userDetailsCacheConfig.getListenerPollTimeout().toMillis();
+        while(running) {
+            try(Connection connection = DriverManager.getConnection(jdbcConnectionDetails.getJdbcUrl(),
+                    jdbcConnectionDetails.getUsername(), jdbcConnectionDetails.getPassword())) {
+                try(Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + UserCacheInvalidator.CHANNEL);
+                }
+                userCacheInvalidator.evictAll();
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while(running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeout);
+                    if(notifications == null) {
+                        continue;
+                    }
+                    for(PGNotification notification : notifications) {
+                        userCacheInvalidator.evict(notification.getParameter());
+                    }
+                }
+            } catch (SQLException ex) {
+                sleepBeforeReconnect();
+            }
+        }
+    }
+
+    private void sleepBeforeReconnect() {
+        try {
+            Thread.sleep(userDetailsCacheConfig.getListenerReconnectDelay().toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.zhuk.medication.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Component
+@RequiredArgsConstructor
+public class UserCacheInvalidator {
+    public static final String CHANNEL = "user_cache_invalidation";
+    private final UserDetailsCache userDetailsCache;
+    private final AuthenticationCache authenticationCache;
+    private final TokenVersionCache tokenVersionCache;
+    private final JdbcTemplate jdbcTemplate;
+
+    public void invalidate(String username) {
+        evict(username);
+        if(TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(username);
+                }
+            });
+        }
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", (RowCallbackHandler) resultSet -> {}, CHANNEL, username);
+    }
+
+    public void evict(String username) {
+        userDetailsCache.invalidate(username);
+        authenticationCache.invalidate(username);
+        tokenVersionCache.invalidate(username);
+    }
+
+    public void evictAll() {
+        userDetailsCache.invalidateAll();
+        authenticationCache.invalidateAll();
+        tokenVersionCache.invalidateAll();
+    }
+}
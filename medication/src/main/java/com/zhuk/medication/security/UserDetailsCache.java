@@ -0,0 +1,43 @@
+package com.zhuk.medication.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zhuk.medication.config.UserDetailsCacheConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+@Component
+public class UserDetailsCache implements MeterBinder {
+    public static final String CACHE_NAME = "user.details";
+    private final Cache<String, CustomUserDetails> cache;
+
+    public UserDetailsCache(UserDetailsCacheConfig userDetailsCacheConfig) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(userDetailsCacheConfig.getMaxSize())
+                .expireAfterWrite(userDetailsCacheConfig.getTtl())
+                .recordStats()
+                .build();
+    }
+
+    public CustomUserDetails get(String username, Function<String, CustomUserDetails> loader) {
+        return cache.get(username, loader);
+    }
+
+    public void invalidate(String username) {
+        cache.invalidate(username);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+}
@@ -0,0 +1,98 @@
+package com.zhuk.medication.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zhuk.medication.config.IdempotencyConfig;
+import com.zhuk.medication.entity.IdempotencyKeyEntity;
+import com.zhuk.medication.enums.ApiMessageEnum;
+import com.zhuk.medication.enums.ErrorCodeEnum;
+import com.zhuk.medication.exception.medication.IdempotencyKeyMismatchException;
+import com.zhuk.medication.repository.IdempotencyKeyRepository;
+import com.zhuk.medication.utils.ErrorCodeHelper;
+import com.zhuk.medication.utils.MessageSourceWrapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final IdempotencyConfig idempotencyConfig;
+    private final ObjectMapper objectMapper;
+    private final MessageSourceWrapper messageSourceWrapper;
+    private final ErrorCodeHelper errorCodeHelper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <T> T executeOnce(String key, Object request, TypeReference<T> responseType, Supplier<T> action) {
+        if(key == null) {
+            return action.get();
+        }
+        String requestHash = getRequestHash(request);
+        // a concurrent duplicate blocks on the primary key until the first caller commits or rolls back
+        if(idempotencyKeyRepository.insertIfAbsent(key, requestHash,
+                LocalDateTime.now().plus(idempotencyConfig.getTtl())) == 0) {
+            Optional<IdempotencyKeyEntity> stored = idempotencyKeyRepository.findById(key);
+            if(stored.filter(entity -> !requestHash.equals(entity.getRequestHash())).isPresent()) {
+                throw new IdempotencyKeyMismatchException(HttpStatus.UNPROCESSABLE_ENTITY,
+                        messageSourceWrapper.getMessageCode(ApiMessageEnum.IDEMPOTENCY_KEY_MISMATCH),
+                        errorCodeHelper.getCode(ErrorCodeEnum.IDEMPOTENCY_KEY_MISMATCH_CODE));
+            }
+            return readResponse(stored.map(IdempotencyKeyEntity::getResponse).orElse(null), responseType);
+        }
+        T response = action.get();
+        if(response != null) {
+            idempotencyKeyRepository.updateResponseByKey(key, writeResponse(response));
+        }
+        return response;
+    }
+
+    @Scheduled(fixedDelayString = "${medication.idempotency.cleanup-delay}")
+    @Transactional
+    public void deleteExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted;
+        do {
+            deleted = idempotencyKeyRepository.deleteExpired(now, idempotencyConfig.getCleanupBatchSize());
+        } while (deleted > 0);
+    }
+
+    private String getRequestHash(Object request) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(objectMapper.writeValueAsBytes(request)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <T> T readResponse(String response, TypeReference<T> responseType) {
+        if(response == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(response, responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String writeResponse(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
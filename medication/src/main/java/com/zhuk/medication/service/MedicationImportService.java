@@ -0,0 +1,272 @@
+package com.zhuk.medication.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.zhuk.medication.config.CatalogConfig;
+import com.zhuk.medication.dto.ImportRejectDto;
+import com.zhuk.medication.dto.ImportResultDto;
+import com.zhuk.medication.dto.NewMedicationDto;
+import com.zhuk.medication.enums.ApiMessageEnum;
+import com.zhuk.medication.enums.ErrorCodeEnum;
+import com.zhuk.medication.enums.ImportFormatEnum;
+import com.zhuk.medication.exception.medication.MedicationImportInvalidException;
+import com.zhuk.medication.exception.user.UserUnknownException;
+import com.zhuk.medication.security.CustomUserDetails;
+import com.zhuk.medication.utils.ErrorCodeHelper;
+import com.zhuk.medication.utils.MedicationValidator;
+import com.zhuk.medication.utils.MessageSourceWrapper;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@Service
+public class MedicationImportService {
+    private static final String CREATE_STAGING_TABLE_QUERY = "CREATE TEMP TABLE medication_import (" +
+            "line bigint, name varchar(64), manufacturer varchar(128), type varchar(32), " +
+            "weight int, quantity int, additional_info varchar(256)) ON COMMIT DROP";
+    private static final String COPY_QUERY = "COPY medication_import " +
+            "(line, name, manufacturer, type, weight, quantity, additional_info) FROM STDIN";
+    // the last row wins when the file repeats a name and weight, as with consecutive PUTs
+    private static final String MERGE_QUERY = "INSERT INTO medication " +
+            "(name, manufacturer, type, weight, quantity, additional_info, user_id) " +
+            "SELECT DISTINCT ON (i.name, i.weight) i.name, i.manufacturer, i.type, i.weight, i.quantity, " +
+            "i.additional_info, u.id FROM medication_import i CROSS JOIN users u WHERE u.username = ? " +
+            "ORDER BY i.name, i.weight, i.line DESC " +
+            "ON CONFLICT (name, weight, user_id) DO UPDATE SET manufacturer = EXCLUDED.manufacturer, " +
+            "type = EXCLUDED.type, quantity = EXCLUDED.quantity, additional_info = EXCLUDED.additional_info";
+    private static final List<String> REQUIRED_COLUMNS = List.of("name", "manufacturer", "type", "weight", "quantity");
+    private static final String ADDITIONAL_INFO_COLUMN = "additional_info";
+    private static final int COPY_BUFFER_SIZE = 1 << 16;
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectReader newMedicationReader;
+    private final MessageSourceWrapper messageSourceWrapper;
+    private final ErrorCodeHelper errorCodeHelper;
+    private final CatalogConfig catalogConfig;
+    private final MedicationValidator medicationValidator;
+
+    public MedicationImportService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                                   MessageSourceWrapper messageSourceWrapper, ErrorCodeHelper errorCodeHelper,
+                                   CatalogConfig catalogConfig, MedicationValidator medicationValidator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.newMedicationReader = objectMapper.readerFor(NewMedicationDto.class);
+        this.messageSourceWrapper = messageSourceWrapper;
+        this.errorCodeHelper = errorCodeHelper;
+        this.catalogConfig = catalogConfig;
+        this.medicationValidator = medicationValidator;
+    }
+
+    @Transactional
+    public ImportResultDto importMedications(InputStream body, ImportFormatEnum format) {
+        String username = getCurrentUser().getUsername();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        return jdbcTemplate.execute((ConnectionCallback<ImportResultDto>) connection -> {
+            try(Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_STAGING_TABLE_QUERY);
+            }
+            List<ImportRejectDto> rejects = new ArrayList<>();
+            long rejectedCount = stage(reader, format, connection, rejects);
+            try(PreparedStatement preparedStatement = connection.prepareStatement(MERGE_QUERY)) {
+                preparedStatement.setString(1, username);
+                return ImportResultDto.builder()
+                        .importedCount(preparedStatement.executeUpdate())
+                        .rejectedCount(rejectedCount)
+                        .rejects(rejects)
+                        .build();
+            }
+        });
+    }
+
+    private long stage(BufferedReader reader, ImportFormatEnum format, Connection connection,
+                       List<ImportRejectDto> rejects) throws SQLException {
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_QUERY);
+        try {
+            StringBuilder buffer = new StringBuilder(COPY_BUFFER_SIZE
+                    + MedicationValidator.MAX_ADDITIONAL_INFO_LENGTH * 4);
+            Map<String, Integer> columns = format == ImportFormatEnum.CSV ? readCsvHeader(reader) : null;
+            long lineNumber = columns == null ? 0 : 1;
+            long rejectedCount = 0;
+            String line;
+            while((line = reader.readLine()) != null) {
+                lineNumber++;
+                if(line.isBlank()) {
+                    continue;
+                }
+                ApiMessageEnum reject = stageRow(line, lineNumber, columns, buffer);
+                if(reject != null) {
+                    if(rejectedCount++ < catalogConfig.getImportMaxReportedRejects()) {
+                        rejects.add(ImportRejectDto.builder()
+                                .line(lineNumber)
+                                .reason(messageSourceWrapper.getMessageCode(reject))
+                                .build());
+                    }
+                    continue;
+                }
+                if(buffer.length() >= COPY_BUFFER_SIZE) {
+                    writeToCopy(copyIn, buffer);
+                }
+            }
+            writeToCopy(copyIn, buffer);
+            copyIn.endCopy();
+            return rejectedCount;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            if(copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private ApiMessageEnum stageRow(String line, long lineNumber, Map<String, Integer> columns, StringBuilder buffer) {
+        NewMedicationDto dto;
+        try {
+            dto = columns == null ? newMedicationReader.readValue(line) : parseCsvRow(line, columns);
+        } catch (JsonProcessingException | IllegalArgumentException ex) {
+            return ApiMessageEnum.MEDICATION_IMPORT_MALFORMED_ROW;
+        }
+        ApiMessageEnum reject = medicationValidator.getRejectReason(dto);
+        if(reject != null) {
+            return reject;
+        }
+        buffer.append(lineNumber).append('\t');
+        appendCopyValue(buffer, dto.getName()).append('\t');
+        appendCopyValue(buffer, dto.getManufacturer()).append('\t');
+        buffer.append(dto.getType()).append('\t')
+                .append(dto.getWeight()).append('\t')
+                .append(dto.getQuantity()).append('\t');
+        appendCopyValue(buffer, dto.getAdditionalInfo()).append('\n');
+        return null;
+    }
+
+    private Map<String, Integer> readCsvHeader(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        Map<String, Integer> columns = new HashMap<>();
+        if(header != null) {
+            boolean hasByteOrderMark = !header.isEmpty() && header.charAt(0) == BYTE_ORDER_MARK;
+            List<String> names = splitCsvLine(hasByteOrderMark ? header.substring(1) : header);
+            for(int i = 0; i < names.size(); i++) {
+                columns.putIfAbsent(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+        }
+        if(!columns.keySet().containsAll(REQUIRED_COLUMNS)) {
+            throw new MedicationImportInvalidException(HttpStatus.BAD_REQUEST,
+                    messageSourceWrapper.getMessageCode(ApiMessageEnum.MEDICATION_IMPORT_INVALID),
+                    errorCodeHelper.getCode(ErrorCodeEnum.MEDICATION_IMPORT_INVALID_CODE));
+        }
+        return columns;
+    }
+
+    private NewMedicationDto parseCsvRow(String line, Map<String, Integer> columns) {
+        List<String> values = splitCsvLine(line);
+        Integer additionalInfoIndex = columns.get(ADDITIONAL_INFO_COLUMN);
+        String additionalInfo = additionalInfoIndex == null || additionalInfoIndex >= values.size()
+                || values.get(additionalInfoIndex).isEmpty() ? null : values.get(additionalInfoIndex);
+        return NewMedicationDto.builder()
+                .name(getCsvValue(values, columns, "name"))
+                .manufacturer(getCsvValue(values, columns, "manufacturer"))
+                .type(getCsvValue(values, columns, "type"))
+                .weight(Integer.parseInt(getCsvValue(values, columns, "weight").trim()))
+                .quantity(Integer.parseInt(getCsvValue(values, columns, "quantity").trim()))
+                .additionalInfo(additionalInfo)
+                .build();
+    }
+
+    private String getCsvValue(List<String> values, Map<String, Integer> columns, String column) {
+        int index = columns.get(column);
+        if(index >= values.size()) {
+            throw new IllegalArgumentException("Missing column " + column);
+        }
+        return values.get(index);
+    }
+
+    private List<String> splitCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for(int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if(quoted) {
+                if(c != '"') {
+                    value.append(c);
+                } else if(i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if(c == '"') {
+                quoted = true;
+            } else if(c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if(quoted) {
+            throw new IllegalArgumentException("Unterminated quoted value");
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private StringBuilder appendCopyValue(StringBuilder buffer, String value) {
+        if(value == null) {
+            return buffer.append("\\N");
+        }
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch(c) {
+                case '\\' -> buffer.append("\\\\");
+                case '\t' -> buffer.append("\\t");
+                case '\n' -> buffer.append("\\n");
+                case '\r' -> buffer.append("\\r");
+                default -> buffer.append(c);
+            }
+        }
+        return buffer;
+    }
+
+    private void writeToCopy(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        if(buffer.isEmpty()) {
+            return;
+        }
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    private CustomUserDetails getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if(authentication == null || !(authentication.getPrincipal() instanceof CustomUserDetails)) {
+            throw new UserUnknownException(HttpStatus.FORBIDDEN,
+                    messageSourceWrapper.getMessageCode(ApiMessageEnum.USER_UNKNOWN_EXCEPTION),
+                    errorCodeHelper.getCode(ErrorCodeEnum.USER_UNKNOWN_EXCEPTION_CODE));
+        }
+        return ((CustomUserDetails) authentication.getPrincipal());
+    }
+}
@@ -1,7 +1,13 @@
 package com.zhuk.medication.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.zhuk.medication.config.CatalogConfig;
 import com.zhuk.medication.dto.MedicationDto;
+import com.zhuk.medication.dto.MedicationFilterDto;
+import com.zhuk.medication.dto.MedicationPageDto;
 import com.zhuk.medication.dto.NewMedicationDto;
+import com.zhuk.medication.dto.QuantityChangeDto;
+import com.zhuk.medication.dto.QuantityChangeResultDto;
 import com.zhuk.medication.dto.UpdateQuantityDto;
 import com.zhuk.medication.entity.MedicationEntity;
 import com.zhuk.medication.entity.UserEntity;
@@ -9,15 +15,20 @@ import com.zhuk.medication.enums.ApiMessageEnum;
 import com.zhuk.medication.enums.ErrorCodeEnum;
 import com.zhuk.medication.enums.MedicationTypeEnum;
 import com.zhuk.medication.enums.UserRoleEnum;
+import com.zhuk.medication.exception.BaseApiException;
 import com.zhuk.medication.exception.medication.MedicationAlreadyExistsException;
+import com.zhuk.medication.exception.medication.MedicationBadRequestException;
+import com.zhuk.medication.exception.medication.MedicationBulkInvalidException;
 import com.zhuk.medication.exception.medication.MedicationNoRightsException;
 import com.zhuk.medication.exception.medication.MedicationNotFoundException;
 import com.zhuk.medication.exception.medication.MedicationNotEnoughQuantityException;
+import com.zhuk.medication.exception.user.UserNotFoundException;
 import com.zhuk.medication.exception.user.UserUnknownException;
 import com.zhuk.medication.mapper.MedicationMapper;
 import com.zhuk.medication.repository.MedicationRepository;
 import com.zhuk.medication.security.CustomUserDetails;
 import com.zhuk.medication.utils.ErrorCodeHelper;
+import com.zhuk.medication.utils.MedicationValidator;
 import com.zhuk.medication.utils.MessageSourceWrapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -26,17 +37,25 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 @Service
 @RequiredArgsConstructor
 public class MedicationService {
+    private static final int MAX_PAGE_SIZE = 500;
     private final MedicationMapper medicationMapper;
     private final MedicationRepository medicationRepository;
     private final MessageSourceWrapper messageSourceWrapper;
     private final ErrorCodeHelper errorCodeHelper;
     private final UserService userService;
+    private final IdempotencyService idempotencyService;
+    private final MedicationValidator medicationValidator;
+    private final CatalogConfig catalogConfig;
     public List<MedicationDto> findAll() {
         List<MedicationEntity> medicationEntities = getMedicationEntityListForCurrentUser();
         return medicationEntities.stream()
@@ -44,93 +63,155 @@ public class MedicationService {
                 .toList();
     }
 
+    public MedicationPageDto search(MedicationFilterDto filter, Long cursor, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        CustomUserDetails currentUser = getCurrentUser();
+        boolean isAdmin = currentUser.getAuthorities().stream()
+                .anyMatch(authority -> authority.getAuthority().equals(UserRoleEnum.ROLE_ADMIN.name()));
+        List<MedicationEntity> medicationEntities = medicationRepository.search(filter,
+                isAdmin ? null : currentUser.getUsername(), cursor, pageSize + 1);
+        boolean hasNextPage = medicationEntities.size() > pageSize;
+        List<MedicationEntity> page = hasNextPage ? medicationEntities.subList(0, pageSize) : medicationEntities;
+        return MedicationPageDto.builder()
+                .medications(page.stream()
+                        .map(medicationMapper::map)
+                        .toList())
+                .nextCursor(hasNextPage ? page.get(page.size() - 1).getId() : null)
+                .build();
+    }
+
     public MedicationDto findById(Long id) {
-        validateMedicationForCurrentUser(id);
-        return medicationMapper.map(getEntityByIdOrThrowException(id));
+        return medicationMapper.map(medicationRepository.findByIdAndUserUsername(id, getCurrentUser().getUsername())
+                .orElseThrow(() -> getNotFoundOrNoRightsException(id)));
     }
 
-    public MedicationDto saveMedication(NewMedicationDto dto) {
-        if(getOptionalEntityByNameAndWeight(dto.getName(), dto.getWeight()).isPresent()) {
-            throw new MedicationAlreadyExistsException(HttpStatus.BAD_REQUEST,
-                    messageSourceWrapper.getMessageCode(ApiMessageEnum.MEDICATION_ALREADY_EXISTS),
-                    errorCodeHelper.getCode(ErrorCodeEnum.MEDICATION_ALREADY_EXISTS_CODE));
+    public List<MedicationDto> findAllByIds(Collection<Long> ids) {
+        if(ids.isEmpty()) {
+            return List.of();
         }
-        MedicationEntity entity = MedicationEntity.builder()
-                .name(dto.getName())
-                .type(MedicationTypeEnum.valueOf(dto.getType()))
-                .additionalInfo(dto.getAdditionalInfo())
-                .manufacturer(dto.getManufacturer())
-                .quantity(dto.getQuantity())
-                .weight(dto.getWeight())
-                .user(userService.getUserEntityByUsernameOrThrowException(getCurrentUser().getUsername()))
-                .build();
-        return medicationMapper.map(medicationRepository.save(entity));
+        Set<Long> distinctIds = Set.copyOf(ids);
+        if(distinctIds.size() > catalogConfig.getMaxIdsPerRequest()) {
+            throw new MedicationBadRequestException(HttpStatus.BAD_REQUEST,
+                    messageSourceWrapper.getMessageCode(ApiMessageEnum.MEDICATION_TOO_MANY_IDS,
+                            catalogConfig.getMaxIdsPerRequest()),
+                    errorCodeHelper.getCode(ErrorCodeEnum.MEDICATION_BAD_REQUEST_CODE));
+        }
+        UserEntity user = userService.getUserEntityByUsernameOrThrowException(getCurrentUser().getUsername());
+        List<MedicationEntity> medicationEntities = user.getRole() == UserRoleEnum.ROLE_ADMIN
+                ? medicationRepository.findAllById(distinctIds)
+                : medicationRepository.findAllByIdInAndUser(distinctIds, user);
+        return medicationEntities.stream()
+                .map(medicationMapper::map)
+                .toList();
+    }
+
+    @Transactional
+    public MedicationDto saveMedication(NewMedicationDto dto) {
+        MedicationTypeEnum type = MedicationTypeEnum.valueOf(dto.getType());
+        UserEntity user = userService.getUserEntityByUsernameOrThrowException(getCurrentUser().getUsername());
+        return medicationMapper.map(medicationRepository.insertIfAbsentByUsername(dto.getName(),
+                        dto.getManufacturer(), type.name(), dto.getWeight(), dto.getQuantity(),
+                        dto.getAdditionalInfo(), user.getUsername())
+                .orElseThrow(() -> new MedicationAlreadyExistsException(HttpStatus.BAD_REQUEST,
+                        messageSourceWrapper.getMessageCode(ApiMessageEnum.MEDICATION_ALREADY_EXISTS),
+                        errorCodeHelper.getCode(ErrorCodeEnum.MEDICATION_ALREADY_EXISTS_CODE))));
     }
 
     @Transactional
     public void deleteMedication(Long id) {
-        Optional<MedicationEntity> entityOptional = getOptionalEntityById(id);
-        if(entityOptional.isEmpty()) {
-            return;
+        if(medicationRepository.deleteByIdAndUsername(id, getCurrentUser().getUsername()) == 0
+                && medicationRepository.existsById(id)) {
+            throw getNoRightsException();
         }
-        validateMedicationForCurrentUser(id);
-        medicationRepository.deleteById(id);
     }
 
     @Transactional
     public MedicationDto updateMedication(NewMedicationDto dto) {
-        Optional<MedicationEntity> entityOptional = getOptionalEntityByNameAndWeight(dto.getName(), dto.getWeight());
-        if(entityOptional.isEmpty()) {
-            return saveMedication(dto);
+        MedicationTypeEnum type = MedicationTypeEnum.valueOf(dto.getType());
+        return medicationMapper.map(medicationRepository.upsertByUsername(dto.getName(), dto.getManufacturer(),
+                        type.name(), dto.getWeight(), dto.getQuantity(), dto.getAdditionalInfo(),
+                        getCurrentUser().getUsername())
+                .orElseThrow(() -> new UserNotFoundException(HttpStatus.NOT_FOUND,
+                        messageSourceWrapper.getMessageCode(ApiMessageEnum.USER_NOT_FOUND),
+                        errorCodeHelper.getCode(ErrorCodeEnum.USER_NOT_FOUND_CODE))));
+    }
+
+    @Transactional
+    public void updateMedications(List<NewMedicationDto> dtos) {
+        for(int i = 0; i < dtos.size(); i++) {
+            ApiMessageEnum reject = medicationValidator.getRejectReason(dtos.get(i));
+            if(reject != null) {
+                throw new MedicationBulkInvalidException(HttpStatus.BAD_REQUEST,
+                        messageSourceWrapper.getMessageCode(ApiMessageEnum.MEDICATION_BULK_INVALID, i,
+                                messageSourceWrapper.getMessageCode(reject)),
+                        errorCodeHelper.getCode(ErrorCodeEnum.MEDICATION_BULK_INVALID_CODE));
+            }
         }
-        Long id = entityOptional.get().getId();
-        validateMedicationForCurrentUser(id);
-        updateByNameAndWeight(dto);
-        MedicationEntity entity = MedicationEntity.builder()
-                .id(id)
-                .type(MedicationTypeEnum.valueOf(dto.getType()))
-                .additionalInfo(dto.getAdditionalInfo())
-                .manufacturer(dto.getManufacturer())
-                .quantity(dto.getQuantity())
-                .weight(dto.getWeight())
-                .user(userService.getUserEntityByUsernameOrThrowException(getCurrentUser().getUsername()))
-                .build();
-        return medicationMapper.map(entity);
+        UserEntity user = userService.getUserEntityByUsernameOrThrowException(getCurrentUser().getUsername());
+        medicationRepository.upsertAllByUsername(dtos, user.getUsername());
     }
 
     @Transactional
     public void updateQuantity(Long id, UpdateQuantityDto dto) {
-        MedicationEntity entity = getEntityByIdOrThrowException(id);
-        validateMedicationForCurrentUser(id);
-        if(dto.getQuantity() < 0 && entity.getQuantity() < Math.abs(dto.getQuantity())) {
+        String username = getCurrentUser().getUsername();
+        if(medicationRepository.addQuantityIfEnoughByIdAndUsername(id, username, dto.getQuantity()) == 0) {
+            if(!medicationRepository.existsByIdAndUserUsername(id, username)) {
+                throw getNotFoundOrNoRightsException(id);
+            }
             throw new MedicationNotEnoughQuantityException(HttpStatus.BAD_REQUEST,
                     messageSourceWrapper.getMessageCode(ApiMessageEnum.MEDICATION_NOT_ENOUGH_QUANTITY),
                     errorCodeHelper.getCode(ErrorCodeEnum.MEDICATION_NOT_ENOUGH_QUANTITY_CODE));
         }
-        medicationRepository.updateQuantityById(id, entity.getQuantity() + dto.getQuantity());
     }
 
-    private void updateByNameAndWeight(NewMedicationDto dto) {
-        medicationRepository.updateByNameAndWeight(dto.getName(), dto.getManufacturer(),
-                dto.getWeight(), dto.getQuantity(),
-                dto.getAdditionalInfo(), MedicationTypeEnum.valueOf(dto.getType()));
+    @Transactional
+    public void updateQuantity(Long id, UpdateQuantityDto dto, String idempotencyKey) {
+        idempotencyService.executeOnce(getScopedKey(idempotencyKey), List.of(id, dto),
+                new TypeReference<Void>() {}, () -> {
+                    updateQuantity(id, dto);
+                    return null;
+                });
     }
 
-    private MedicationEntity getEntityByIdOrThrowException(Long id) {
-        Optional<MedicationEntity> medication = getOptionalEntityById(id);
-        return medication.orElseThrow(
-                () -> new MedicationNotFoundException(HttpStatus.NOT_FOUND,
-                        messageSourceWrapper.getMessageCode(ApiMessageEnum.MEDICATION_NOT_FOUND),
-                        errorCodeHelper.getCode(ErrorCodeEnum.MEDICATION_NOT_FOUND_CODE))
-        );
+    @Transactional
+    public List<QuantityChangeResultDto> updateQuantities(List<QuantityChangeDto> changes, String idempotencyKey) {
+        return idempotencyService.executeOnce(getScopedKey(idempotencyKey), changes,
+                new TypeReference<>() {}, () -> updateQuantities(changes));
     }
 
-    private Optional<MedicationEntity> getOptionalEntityById(Long id) {
-        return medicationRepository.findById(id);
+    @Transactional
+    public List<QuantityChangeResultDto> updateQuantities(List<QuantityChangeDto> changes) {
+        validateQuantityChanges(changes);
+        // ascending id order keeps row locks ordered, so concurrent batches can't deadlock
+        Map<Long, Integer> deltas = new TreeMap<>();
+        changes.forEach(change -> deltas.merge(change.getMedicationId(), change.getQuantity(), Integer::sum));
+        Map<Long, Integer> remainingQuantities = new HashMap<>();
+        deltas.forEach((medicationId, delta) -> {
+            updateQuantity(medicationId, UpdateQuantityDto.builder().quantity(delta).build());
+            remainingQuantities.put(medicationId, medicationRepository.findQuantityById(medicationId));
+        });
+        return changes.stream()
+                .map(change -> QuantityChangeResultDto.builder()
+                        .medicationId(change.getMedicationId())
+                        .appliedQuantity(change.getQuantity())
+                        .remainingQuantity(remainingQuantities.get(change.getMedicationId()))
+                        .build())
+                .toList();
+    }
+
+    private void validateQuantityChanges(List<QuantityChangeDto> changes) {
+        for(int i = 0; i < changes.size(); i++) {
+            QuantityChangeDto change = changes.get(i);
+            if(change == null || change.getMedicationId() == null || change.getQuantity() == null) {
+                throw new MedicationBadRequestException(HttpStatus.BAD_REQUEST,
+                        messageSourceWrapper.getMessageCode(ApiMessageEnum.MEDICATION_BAD_REQUEST, i),
+                        errorCodeHelper.getCode(ErrorCodeEnum.MEDICATION_BAD_REQUEST_CODE));
+            }
+        }
     }
 
-    private Optional<MedicationEntity> getOptionalEntityByNameAndWeight(String name, int weight) {
-        return medicationRepository.getMedicationEntityByNameAndWeight(name, weight);
+    public String getScopedKey(String key) {
+        return key == null ? null : getCurrentUser().getUsername() + ":" + key;
     }
 
     private List<MedicationEntity> getMedicationEntityListForCurrentUser() {
@@ -151,13 +232,18 @@ public class MedicationService {
         return ((CustomUserDetails) authentication.getPrincipal());
     }
 
-    private void validateMedicationForCurrentUser(Long medicationId) {
-        MedicationEntity medicationEntity = getEntityByIdOrThrowException(medicationId);
-        UserEntity user = userService.getUserEntityByUsernameOrThrowException(getCurrentUser().getUsername());
-        if(!medicationEntity.getUser().equals(user)) {
-            throw new MedicationNoRightsException(HttpStatus.FORBIDDEN,
-                    messageSourceWrapper.getMessageCode(ApiMessageEnum.MEDICATION_NO_RIGHTS),
-                    errorCodeHelper.getCode(ErrorCodeEnum.MEDICATION_NO_RIGHTS_CODE));
+    private BaseApiException getNotFoundOrNoRightsException(Long id) {
+        if(medicationRepository.existsById(id)) {
+            return getNoRightsException();
         }
+        return new MedicationNotFoundException(HttpStatus.NOT_FOUND,
+                messageSourceWrapper.getMessageCode(ApiMessageEnum.MEDICATION_NOT_FOUND),
+                errorCodeHelper.getCode(ErrorCodeEnum.MEDICATION_NOT_FOUND_CODE));
+    }
+
+    private MedicationNoRightsException getNoRightsException() {
+        return new MedicationNoRightsException(HttpStatus.FORBIDDEN,
+                messageSourceWrapper.getMessageCode(ApiMessageEnum.MEDICATION_NO_RIGHTS),
+                errorCodeHelper.getCode(ErrorCodeEnum.MEDICATION_NO_RIGHTS_CODE));
     }
 }
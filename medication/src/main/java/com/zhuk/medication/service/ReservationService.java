@@ -0,0 +1,138 @@
+package com.zhuk.medication.service;
+
+import com.zhuk.medication.config.ReservationConfig;
+import com.zhuk.medication.dto.NewReservationDto;
+import com.zhuk.medication.dto.ReservationDto;
+import com.zhuk.medication.dto.UpdateQuantityDto;
+import com.zhuk.medication.entity.MedicationReservationEntity;
+import com.zhuk.medication.enums.ApiMessageEnum;
+import com.zhuk.medication.enums.ErrorCodeEnum;
+import com.zhuk.medication.exception.medication.MedicationReservationAlreadyExistsException;
+import com.zhuk.medication.exception.medication.MedicationReservationInvalidException;
+import com.zhuk.medication.exception.medication.MedicationReservationNotFoundException;
+import com.zhuk.medication.mapper.ReservationMapper;
+import com.zhuk.medication.repository.MedicationReservationRepository;
+import com.zhuk.medication.utils.ErrorCodeHelper;
+import com.zhuk.medication.utils.MessageSourceWrapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Service
+@RequiredArgsConstructor
+public class ReservationService {
+    private static final int MAX_KEY_LENGTH = 127;
+    private final MedicationReservationRepository medicationReservationRepository;
+    private final MedicationService medicationService;
+    private final ReservationMapper reservationMapper;
+    private final ReservationConfig reservationConfig;
+    private final MessageSourceWrapper messageSourceWrapper;
+    private final ErrorCodeHelper errorCodeHelper;
+
+    @Transactional
+    public ReservationDto reserve(Long medicationId, NewReservationDto dto) {
+        validateNewDto(dto);
+        String key = medicationService.getScopedKey(dto.getKey());
+        Optional<MedicationReservationEntity> existing = medicationReservationRepository.findById(key);
+        if(existing.isPresent()) {
+            return getReservationForRetry(existing.get(), medicationId, dto);
+        }
+        medicationService.updateQuantity(medicationId, UpdateQuantityDto.builder()
+                .quantity(-dto.getQuantity())
+                .build());
+        MedicationReservationEntity entity = MedicationReservationEntity.builder()
+                .reservationKey(key)
+                .medicationId(medicationId)
+                .quantity(dto.getQuantity())
+                .expiresAt(LocalDateTime.now().plus(getTtl(dto)))
+                .build();
+        if(medicationReservationRepository.insertIfAbsent(entity.getReservationKey(), entity.getMedicationId(),
+                entity.getQuantity(), entity.getExpiresAt()) == 0) {
+            throw getAlreadyExistsException();
+        }
+        return map(entity, dto.getKey());
+    }
+
+    @Transactional
+    public void commit(String key) {
+        String scopedKey = medicationService.getScopedKey(key);
+        medicationService.findById(getEntityByKeyOrThrowException(scopedKey).getMedicationId());
+        if(medicationReservationRepository.deleteByKey(scopedKey) == 0) {
+            throw getNotFoundException();
+        }
+    }
+
+    @Transactional
+    public void release(String key) {
+        String scopedKey = medicationService.getScopedKey(key);
+        Optional<MedicationReservationEntity> reservation = medicationReservationRepository.findById(scopedKey);
+        if(reservation.isEmpty()) {
+            return;
+        }
+        medicationService.findById(reservation.get().getMedicationId());
+        medicationReservationRepository.releaseByKey(scopedKey);
+    }
+
+    @Scheduled(fixedDelayString = "${medication.reservations.sweep-delay}")
+    @Transactional
+    public void releaseExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int released;
+        do {
+            released = medicationReservationRepository.releaseExpired(now, reservationConfig.getSweepBatchSize());
+        } while (released > 0);
+    }
+
+    private void validateNewDto(NewReservationDto dto) {
+        if(dto.getKey() == null || dto.getKey().isBlank() || dto.getKey().length() > MAX_KEY_LENGTH
+                || dto.getQuantity() == null || dto.getQuantity() <= 0) {
+            throw new MedicationReservationInvalidException(HttpStatus.BAD_REQUEST,
+                    messageSourceWrapper.getMessageCode(ApiMessageEnum.MEDICATION_RESERVATION_INVALID, MAX_KEY_LENGTH),
+                    errorCodeHelper.getCode(ErrorCodeEnum.MEDICATION_RESERVATION_INVALID_CODE));
+        }
+    }
+
+    private ReservationDto getReservationForRetry(MedicationReservationEntity entity, Long medicationId,
+                                                  NewReservationDto dto) {
+        if(!entity.getMedicationId().equals(medicationId) || entity.getQuantity() != dto.getQuantity()) {
+            throw getAlreadyExistsException();
+        }
+        return map(entity, dto.getKey());
+    }
+
+    private ReservationDto map(MedicationReservationEntity entity, String key) {
+        return reservationMapper.map(entity).toBuilder()
+                .reservationKey(key)
+                .build();
+    }
+
+    private Duration getTtl(NewReservationDto dto) {
+        if(dto.getTtlSeconds() == null) {
+            return reservationConfig.getDefaultTtl();
+        }
+        Duration ttl = Duration.ofSeconds(dto.getTtlSeconds());
+        return ttl.compareTo(reservationConfig.getMaxTtl()) > 0 ? reservationConfig.getMaxTtl() : ttl;
+    }
+
+    private MedicationReservationEntity getEntityByKeyOrThrowException(String key) {
+        return medicationReservationRepository.findById(key).orElseThrow(this::getNotFoundException);
+    }
+
+    private MedicationReservationNotFoundException getNotFoundException() {
+        return new MedicationReservationNotFoundException(HttpStatus.NOT_FOUND,
+                messageSourceWrapper.getMessageCode(ApiMessageEnum.MEDICATION_RESERVATION_NOT_FOUND),
+                errorCodeHelper.getCode(ErrorCodeEnum.MEDICATION_RESERVATION_NOT_FOUND_CODE));
+    }
+
+    private MedicationReservationAlreadyExistsException getAlreadyExistsException() {
+        return new MedicationReservationAlreadyExistsException(HttpStatus.BAD_REQUEST,
+                messageSourceWrapper.getMessageCode(ApiMessageEnum.MEDICATION_RESERVATION_ALREADY_EXISTS),
+                errorCodeHelper.getCode(ErrorCodeEnum.MEDICATION_RESERVATION_ALREADY_EXISTS_CODE));
+    }
+}
@@ -10,6 +10,8 @@ import com.zhuk.medication.exception.user.UserAlreadyExistsException;
 import com.zhuk.medication.exception.user.UserNotFoundException;
 import com.zhuk.medication.mapper.UserMapper;
 import com.zhuk.medication.repository.UserRepository;
+import com.zhuk.medication.security.TokenService;
+import com.zhuk.medication.security.UserCacheInvalidator;
 import com.zhuk.medication.utils.ErrorCodeHelper;
 import com.zhuk.medication.utils.MessageSourceWrapper;
 import lombok.RequiredArgsConstructor;
@@ -29,6 +31,8 @@ public class UserService {
     private final PasswordEncoder passwordEncoder;
     private final MessageSourceWrapper messageSourceWrapper;
     private final ErrorCodeHelper errorCodeHelper;
+    private final TokenService tokenService;
+    private final UserCacheInvalidator userCacheInvalidator;
 
     public List<UserDto> findAll() {
         List<UserEntity> list = userRepository.findAll();
@@ -60,6 +64,8 @@ public class UserService {
     @Transactional
     public void deleteUserByUsername(String username) {
         userRepository.deleteByUsername(username);
+        tokenService.revoke(username);
+        userCacheInvalidator.invalidate(username);
     }
 
     @Transactional
@@ -76,6 +82,10 @@ public class UserService {
         }
         userRepository.updateByUsername(user.get().getUsername(), credentialsDto.getUsername(),
                 passwordEncoder.encode(String.valueOf(credentialsDto.getPassword())));
+        tokenService.revoke(user.get().getUsername());
+        tokenService.revoke(credentialsDto.getUsername());
+        userCacheInvalidator.invalidate(user.get().getUsername());
+        userCacheInvalidator.invalidate(credentialsDto.getUsername());
         return userMapper.map(user.get().toBuilder()
                 .username(credentialsDto.getUsername())
                 .password(String.valueOf(credentialsDto.getPassword()))
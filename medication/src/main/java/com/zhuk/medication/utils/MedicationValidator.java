@@ -0,0 +1,36 @@
+package com.zhuk.medication.utils;
+
+import com.zhuk.medication.dto.NewMedicationDto;
+import com.zhuk.medication.enums.ApiMessageEnum;
+import com.zhuk.medication.enums.MedicationTypeEnum;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+@Component
+public class MedicationValidator {
+    public static final int MAX_NAME_LENGTH = 64;
+    public static final int MAX_MANUFACTURER_LENGTH = 128;
+    public static final int MAX_ADDITIONAL_INFO_LENGTH = 256;
+
+    public ApiMessageEnum getRejectReason(NewMedicationDto dto) {
+        if(!hasValidValues(dto)) {
+            return ApiMessageEnum.MEDICATION_IMPORT_INVALID_ROW;
+        }
+        if(Arrays.stream(MedicationTypeEnum.values()).noneMatch(type -> type.name().equals(dto.getType()))) {
+            return ApiMessageEnum.MEDICATION_IMPORT_INVALID_TYPE;
+        }
+        return null;
+    }
+
+    private boolean hasValidValues(NewMedicationDto dto) {
+        return dto != null
+                && dto.getName() != null && !dto.getName().isBlank() && dto.getName().length() <= MAX_NAME_LENGTH
+                && dto.getManufacturer() != null && !dto.getManufacturer().isBlank()
+                && dto.getManufacturer().length() <= MAX_MANUFACTURER_LENGTH
+                && dto.getType() != null
+                && dto.getWeight() > 0
+                && dto.getQuantity() >= 0
+                && (dto.getAdditionalInfo() == null || dto.getAdditionalInfo().length() <= MAX_ADDITIONAL_INFO_LENGTH);
+    }
+}
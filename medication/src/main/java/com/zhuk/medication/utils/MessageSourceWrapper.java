@@ -14,4 +14,7 @@ public class MessageSourceWrapper {
     public String getMessageCode(ApiMessageEnum apiMessageEnum) {
         return messageSource.getMessage(apiMessageEnum.getCode(), null, Locale.getDefault());
     }
+    public String getMessageCode(ApiMessageEnum apiMessageEnum, Object... arguments) {
+        return messageSource.getMessage(apiMessageEnum.getCode(), arguments, Locale.getDefault());
+    }
 }
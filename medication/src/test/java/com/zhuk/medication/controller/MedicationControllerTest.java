@@ -1,15 +1,22 @@
 package com.zhuk.medication.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zhuk.medication.dto.ImportRejectDto;
+import com.zhuk.medication.dto.ImportResultDto;
 import com.zhuk.medication.dto.MedicationDto;
+import com.zhuk.medication.dto.MedicationFilterDto;
+import com.zhuk.medication.dto.MedicationPageDto;
 import com.zhuk.medication.dto.NewMedicationDto;
 import com.zhuk.medication.dto.UpdateQuantityDto;
+import com.zhuk.medication.enums.ImportFormatEnum;
 import com.zhuk.medication.enums.MedicationTypeEnum;
 import com.zhuk.medication.exception.medication.MedicationAlreadyExistsException;
 import com.zhuk.medication.exception.medication.MedicationNotFoundException;
 import com.zhuk.medication.exception.medication.MedicationNotEnoughQuantityException;
+import com.zhuk.medication.service.MedicationImportService;
 import com.zhuk.medication.service.MedicationService;
 import com.zhuk.medication.utils.ErrorCodeHelper;
+import com.zhuk.medication.utils.MessageSourceWrapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -34,7 +41,11 @@ public class MedicationControllerTest {
     @MockBean
     MedicationService medicationService;
     @MockBean
+    MedicationImportService medicationImportService;
+    @MockBean
     ErrorCodeHelper errorCodeHelper;
+    @MockBean
+    MessageSourceWrapper messageSourceWrapper;
     @Autowired
     ObjectMapper objectMapper;
 
@@ -99,6 +110,25 @@ public class MedicationControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    public void findAllByIds_ShouldReturnRequestedMedications_WhenIdsProvided() throws Exception {
+        MedicationDto dto = MedicationDto.builder()
+                .id(2L)
+                .name("SECOND")
+                .manufacturer("TEST")
+                .type(MedicationTypeEnum.PEN)
+                .weight(500)
+                .quantity(100)
+                .additionalInfo("SECOND INFO")
+                .build();
+        when(medicationService.findAllByIds(List.of(1L, 2L))).thenReturn(List.of(dto));
+        mockMvc.perform(get("/api/medication").param("ids", "1,2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(content().json(objectMapper.writeValueAsString(List.of(dto))));
+        verify(medicationService, never()).findAll();
+    }
+
     @Test
     public void saveMedication_ShouldReturnDto_WhenMedicationDoesntExist() throws Exception {
         MedicationDto dto = MedicationDto.builder()
@@ -179,6 +209,84 @@ public class MedicationControllerTest {
                 .andExpect(content().json(objectMapper.writeValueAsString(dto)));
     }
 
+    @Test
+    public void updateMedications_ShouldReturnNoContent_WhenHappyPath() throws Exception {
+        List<NewMedicationDto> newMedicationDtos = List.of(NewMedicationDto.builder()
+                .name("FIRST")
+                .manufacturer("TEST")
+                .type("PEN")
+                .weight(400)
+                .quantity(10)
+                .additionalInfo("FIRST INFO")
+                .build());
+        doNothing().when(medicationService).updateMedications(newMedicationDtos);
+        mockMvc.perform(put("/api/medication/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(newMedicationDtos)))
+                .andExpect(status().isNoContent());
+        verify(medicationService).updateMedications(newMedicationDtos);
+    }
+
+    @Test
+    public void importMedications_ShouldReturnResult_WhenCsvIsProvided() throws Exception {
+        ImportResultDto result = ImportResultDto.builder()
+                .importedCount(1)
+                .rejectedCount(1)
+                .rejects(List.of(ImportRejectDto.builder().line(3).reason("Medication type is unknown!").build()))
+                .build();
+        when(medicationImportService.importMedications(any(), eq(ImportFormatEnum.CSV))).thenReturn(result);
+        mockMvc.perform(post("/api/medication/import")
+                        .contentType("text/csv")
+                        .content("name,manufacturer,type,weight,quantity\nFIRST,TEST,PEN,400,10\nSECOND,TEST,GEL,400,10\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(result)));
+    }
+
+    @Test
+    public void importMedications_ShouldUseNdjsonFormat_WhenNdjsonIsProvided() throws Exception {
+        ImportResultDto result = ImportResultDto.builder()
+                .importedCount(1)
+                .rejects(List.of())
+                .build();
+        when(medicationImportService.importMedications(any(), eq(ImportFormatEnum.NDJSON))).thenReturn(result);
+        mockMvc.perform(post("/api/medication/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"name\":\"FIRST\",\"manufacturer\":\"TEST\",\"type\":\"PEN\",\"weight\":400,\"quantity\":10}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported_count").value(1));
+    }
+
+    @Test
+    public void search_ShouldPassFiltersAndReturnPage_WhenParametersProvided() throws Exception {
+        MedicationPageDto page = MedicationPageDto.builder()
+                .medications(List.of(MedicationDto.builder()
+                        .id(1L)
+                        .name("FIRST")
+                        .manufacturer("TEST")
+                        .type(MedicationTypeEnum.PEN)
+                        .weight(400)
+                        .quantity(3)
+                        .build()))
+                .nextCursor(1L)
+                .build();
+        MedicationFilterDto filter = MedicationFilterDto.builder()
+                .name("fir")
+                .type(MedicationTypeEnum.PEN)
+                .minWeight(100)
+                .maxQuantity(5)
+                .build();
+        when(medicationService.search(filter, 10L, 1)).thenReturn(page);
+        mockMvc.perform(get("/api/medication/search")
+                        .param("name", "fir")
+                        .param("type", "PEN")
+                        .param("min_weight", "100")
+                        .param("max_quantity", "5")
+                        .param("cursor", "10")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(page)));
+    }
+
     @Test
     public void updateQuantityForMedication_ShouldUpdateQuantity_WhenHappyPath() throws Exception {
         MedicationDto dto = MedicationDto.builder()
@@ -193,7 +301,7 @@ public class MedicationControllerTest {
         UpdateQuantityDto quantityDto = UpdateQuantityDto.builder()
                 .quantity(5)
                 .build();
-        doNothing().when(medicationService).updateQuantity(1L, quantityDto);
+        doNothing().when(medicationService).updateQuantity(1L, quantityDto, null);
 
         mockMvc.perform(patch("/api/medication/1")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -207,7 +315,7 @@ public class MedicationControllerTest {
                 .quantity(5)
                 .build();
         doThrow(new MedicationNotFoundException(HttpStatus.NOT_FOUND, "TEST", 1000))
-                .when(medicationService).updateQuantity(999L, quantityDto);
+                .when(medicationService).updateQuantity(999L, quantityDto, null);
         mockMvc.perform(patch("/api/medication/999")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(quantityDto)))
@@ -221,11 +329,24 @@ public class MedicationControllerTest {
                 .quantity(5)
                 .build();
         doThrow(new MedicationNotEnoughQuantityException(HttpStatus.BAD_REQUEST, "TEST", 1000))
-                .when(medicationService).updateQuantity(999L, quantityDto);
+                .when(medicationService).updateQuantity(999L, quantityDto, null);
         mockMvc.perform(patch("/api/medication/999")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(quantityDto)))
                 .andExpect(status().isBadRequest());
 
     }
+
+    @Test
+    public void updateQuantityForMedication_ShouldReturnBadRequest_WhenIdempotencyKeyIsTooLong() throws Exception {
+        UpdateQuantityDto quantityDto = UpdateQuantityDto.builder()
+                .quantity(5)
+                .build();
+        mockMvc.perform(patch("/api/medication/1")
+                        .header("Idempotency-Key", "K".repeat(128))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(quantityDto)))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(medicationService);
+    }
 }
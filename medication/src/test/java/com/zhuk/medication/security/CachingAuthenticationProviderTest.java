@@ -0,0 +1,115 @@
+package com.zhuk.medication.security;
+
+import com.zhuk.medication.config.AuthenticationCacheConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class CachingAuthenticationProviderTest {
+    private static final String USERNAME = "USER";
+    private static final String PASSWORD = "1234";
+    private static final long BENCHMARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private final UserDetails userDetails = User.withUsername(USERNAME)
+            .password(passwordEncoder.encode(PASSWORD))
+            .authorities("ROLE_USER")
+            .build();
+    private UserDetailsService userDetailsService;
+    private DaoAuthenticationProvider daoAuthenticationProvider;
+    private AuthenticationCache authenticationCache;
+    private CachingAuthenticationProvider cachingAuthenticationProvider;
+
+    @BeforeEach
+    public void init() {
+        userDetailsService = mock(UserDetailsService.class);
+        when(userDetailsService.loadUserByUsername(anyString())).thenReturn(userDetails);
+        daoAuthenticationProvider = new DaoAuthenticationProvider();
+        daoAuthenticationProvider.setUserDetailsService(userDetailsService);
+        daoAuthenticationProvider.setPasswordEncoder(passwordEncoder);
+        authenticationCache = new AuthenticationCache(new AuthenticationCacheConfig(10000, Duration.ofMinutes(5)));
+        cachingAuthenticationProvider = new CachingAuthenticationProvider(daoAuthenticationProvider,
+                authenticationCache);
+    }
+
+    @Test
+    public void authenticate_ShouldSkipPasswordCheck_WhenCredentialsAreCached() {
+        Authentication first = cachingAuthenticationProvider.authenticate(getToken(PASSWORD));
+        Authentication second = cachingAuthenticationProvider.authenticate(getToken(PASSWORD));
+        assertTrue(second.isAuthenticated());
+        assertEquals(first.getPrincipal(), second.getPrincipal());
+        assertEquals(first.getAuthorities(), second.getAuthorities());
+        verify(userDetailsService, times(1)).loadUserByUsername(USERNAME);
+    }
+
+    @Test
+    public void authenticate_ShouldNotCache_WhenPasswordIsWrong() {
+        cachingAuthenticationProvider.authenticate(getToken(PASSWORD));
+        assertThrows(BadCredentialsException.class,
+                () -> cachingAuthenticationProvider.authenticate(getToken("WRONG")));
+        assertThrows(BadCredentialsException.class,
+                () -> cachingAuthenticationProvider.authenticate(getToken("WRONG")));
+        verify(userDetailsService, times(3)).loadUserByUsername(USERNAME);
+    }
+
+    @Test
+    public void authenticate_ShouldCheckPasswordAgain_WhenUserIsInvalidated() {
+        cachingAuthenticationProvider.authenticate(getToken(PASSWORD));
+        authenticationCache.invalidate(USERNAME);
+        cachingAuthenticationProvider.authenticate(getToken(PASSWORD));
+        verify(userDetailsService, times(2)).loadUserByUsername(USERNAME);
+    }
+
+    @Test
+    public void authenticate_ShouldNotCache_WhenUserIsInvalidatedDuringAuthentication() {
+        when(userDetailsService.loadUserByUsername(anyString())).thenAnswer(invocation -> {
+            authenticationCache.invalidate(USERNAME);
+            return userDetails;
+        });
+        cachingAuthenticationProvider.authenticate(getToken(PASSWORD));
+        cachingAuthenticationProvider.authenticate(getToken(PASSWORD));
+        verify(userDetailsService, times(2)).loadUserByUsername(USERNAME);
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void authenticate_ShouldServeMoreRequestsPerCore_WhenCredentialsAreCached() {
+        double uncached = measureRequestsPerSecond(daoAuthenticationProvider);
+        double cached = measureRequestsPerSecond(cachingAuthenticationProvider);
+        assertTrue(cached > uncached * 10,
+                () -> String.format("BCrypt %.0f req/s, cached %.0f req/s", uncached, cached));
+    }
+
+    private double measureRequestsPerSecond(AuthenticationProvider authenticationProvider) {
+        authenticationProvider.authenticate(getToken(PASSWORD));
+        long requests = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            assertTrue(authenticationProvider.authenticate(getToken(PASSWORD)).isAuthenticated());
+            requests++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < BENCHMARK_NANOS);
+        return requests * 1e9 / elapsed;
+    }
+
+    private UsernamePasswordAuthenticationToken getToken(String password) {
+        return UsernamePasswordAuthenticationToken.unauthenticated(USERNAME, password);
+    }
+}
@@ -0,0 +1,117 @@
+package com.zhuk.medication.security;
+
+import com.zhuk.medication.config.AuthenticationCacheConfig;
+import com.zhuk.medication.config.TokenConfig;
+import com.zhuk.medication.config.UserDetailsCacheConfig;
+import com.zhuk.medication.entity.UserEntity;
+import com.zhuk.medication.enums.UserRoleEnum;
+import com.zhuk.medication.exception.user.UserNotFoundException;
+import com.zhuk.medication.repository.UserRepository;
+import com.zhuk.medication.utils.ErrorCodeHelper;
+import com.zhuk.medication.utils.MessageSourceWrapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class CustomUserDetailsServiceTest {
+    private static final String USERNAME = "USER";
+    private UserRepository userRepository;
+    private JdbcTemplate jdbcTemplate;
+    private UserDetailsCache userDetailsCache;
+    private UserCacheInvalidator userCacheInvalidator;
+    private CustomUserDetailsService customUserDetailsService;
+
+    @BeforeEach
+    public void init() {
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findByUsername(USERNAME)).thenReturn(Optional.of(UserEntity.builder()
+                .username(USERNAME)
+                .password("PASSWORD")
+                .role(UserRoleEnum.ROLE_USER)
+                .build()));
+        when(userRepository.findByUsername("UNKNOWN")).thenReturn(Optional.empty());
+        jdbcTemplate = mock(JdbcTemplate.class);
+        userDetailsCache = new UserDetailsCache(new UserDetailsCacheConfig(10000, Duration.ofMinutes(10), false,
+                Duration.ofSeconds(5), Duration.ofSeconds(5)));
+        TokenConfig tokenConfig = new TokenConfig(null, Duration.ofMinutes(15), Duration.ofHours(12),
+                Duration.ofSeconds(30), 10000);
+        userCacheInvalidator = new UserCacheInvalidator(userDetailsCache,
+                new AuthenticationCache(new AuthenticationCacheConfig(10000, Duration.ofMinutes(5))),
+                new TokenVersionCache(tokenConfig, userRepository), jdbcTemplate);
+        customUserDetailsService = new CustomUserDetailsService(userRepository, mock(MessageSourceWrapper.class),
+                mock(ErrorCodeHelper.class), userDetailsCache);
+    }
+
+    @Test
+    public void loadUserByUsername_ShouldQueryOnce_WhenUserIsCached() {
+        UserDetails first = customUserDetailsService.loadUserByUsername(USERNAME);
+        UserDetails second = customUserDetailsService.loadUserByUsername(USERNAME);
+        assertSame(first, second);
+        verify(userRepository, times(1)).findByUsername(USERNAME);
+    }
+
+    @Test
+    public void loadUserByUsername_ShouldNotCache_WhenUserDoesntExist() {
+        assertThrows(UserNotFoundException.class, () -> customUserDetailsService.loadUserByUsername("UNKNOWN"));
+        assertThrows(UserNotFoundException.class, () -> customUserDetailsService.loadUserByUsername("UNKNOWN"));
+        verify(userRepository, times(2)).findByUsername("UNKNOWN");
+    }
+
+    @Test
+    public void invalidate_ShouldReloadUserAndNotifyOtherInstances_WhenCalled() {
+        customUserDetailsService.loadUserByUsername(USERNAME);
+        userCacheInvalidator.invalidate(USERNAME);
+        customUserDetailsService.loadUserByUsername(USERNAME);
+        verify(userRepository, times(2)).findByUsername(USERNAME);
+        verify(jdbcTemplate).query(eq("SELECT pg_notify(?, ?)"), any(RowCallbackHandler.class),
+                eq(UserCacheInvalidator.CHANNEL), eq(USERNAME));
+    }
+
+    @Test
+    public void invalidate_ShouldEvictAgain_WhenTransactionCompletes() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userCacheInvalidator.invalidate(USERNAME);
+            customUserDetailsService.loadUserByUsername(USERNAME);
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        customUserDetailsService.loadUserByUsername(USERNAME);
+        verify(userRepository, times(2)).findByUsername(USERNAME);
+    }
+
+    @Test
+    public void evictAll_ShouldReloadEveryUser_WhenCalled() {
+        customUserDetailsService.loadUserByUsername(USERNAME);
+        userCacheInvalidator.evictAll();
+        customUserDetailsService.loadUserByUsername(USERNAME);
+        verify(userRepository, times(2)).findByUsername(USERNAME);
+    }
+
+    @Test
+    public void bindTo_ShouldExposeHitAndMissMetrics_WhenCalled() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        userDetailsCache.bindTo(meterRegistry);
+        customUserDetailsService.loadUserByUsername(USERNAME);
+        customUserDetailsService.loadUserByUsername(USERNAME);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", UserDetailsCache.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", UserDetailsCache.CACHE_NAME)
+                .tag("result", "miss").functionCounter().count());
+    }
+}
@@ -0,0 +1,127 @@
+package com.zhuk.medication.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zhuk.medication.config.TokenConfig;
+import com.zhuk.medication.entity.UserEntity;
+import com.zhuk.medication.enums.UserRoleEnum;
+import com.zhuk.medication.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class TokenServiceTest {
+    private static final Duration MAX_LIFETIME = Duration.ofHours(12);
+    private static final String USERNAME = "USER";
+    private UserRepository userRepository;
+    private TokenVersionCache tokenVersionCache;
+    private TokenService tokenService;
+
+    @BeforeEach
+    public void init() {
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findTokenVersionByUsername(USERNAME)).thenReturn(Optional.of(0));
+        tokenService = getTokenService("SECRET", Duration.ofMinutes(15));
+    }
+
+    @Test
+    public void verify_ShouldReturnUserDetails_WhenTokenIsValid() {
+        String token = tokenService.issue(getUser(), Instant.now());
+        CustomUserDetails userDetails = tokenService.verify(token).orElseThrow();
+        assertEquals(USERNAME, userDetails.getUsername());
+        assertNull(userDetails.getPassword());
+        assertEquals(UserRoleEnum.ROLE_USER.name(), userDetails.getAuthorities().iterator().next().getAuthority());
+    }
+
+    @Test
+    public void verify_ShouldLookUpVersionOnce_WhenTokenIsUsedRepeatedly() {
+        String token = tokenService.issue(getUser(), Instant.now());
+        for(int i = 0; i < 10; i++) {
+            assertTrue(tokenService.verify(token).isPresent());
+        }
+        verify(userRepository, times(1)).findTokenVersionByUsername(USERNAME);
+    }
+
+    @Test
+    public void verify_ShouldReturnEmpty_WhenPayloadIsTampered() {
+        String token = tokenService.issue(getUser(), Instant.now());
+        String forgedPayload = tokenService.issue(getUser().toBuilder().role(UserRoleEnum.ROLE_ADMIN).build(),
+                        Instant.now())
+                .split("\\.")[0];
+        assertTrue(tokenService.verify(forgedPayload + token.substring(token.indexOf('.'))).isEmpty());
+        assertTrue(tokenService.verify("garbage").isEmpty());
+    }
+
+    @Test
+    public void verify_ShouldReturnEmpty_WhenSignedWithAnotherSecret() {
+        String token = getTokenService("ANOTHER SECRET", Duration.ofMinutes(15)).issue(getUser(), Instant.now());
+        assertTrue(tokenService.verify(token).isEmpty());
+    }
+
+    @Test
+    public void verify_ShouldReturnEmpty_WhenTokenIsExpired() {
+        String token = getTokenService("SECRET", Duration.ofSeconds(-1)).issue(getUser(), Instant.now());
+        assertTrue(tokenService.verify(token).isEmpty());
+    }
+
+    @Test
+    public void verify_ShouldReturnEmpty_WhenTokensAreRevoked() {
+        String token = tokenService.issue(getUser(), Instant.now());
+        assertTrue(tokenService.verify(token).isPresent());
+        when(userRepository.findTokenVersionByUsername(USERNAME)).thenReturn(Optional.of(1));
+        tokenService.revoke(USERNAME);
+        verify(userRepository).incrementTokenVersionByUsername(USERNAME);
+        tokenVersionCache.invalidate(USERNAME);
+        assertTrue(tokenService.verify(token).isEmpty());
+        String newToken = tokenService.issue(getUser().toBuilder().tokenVersion(1).build(), Instant.now());
+        assertTrue(tokenService.verify(newToken).isPresent());
+    }
+
+    @Test
+    public void verify_ShouldReturnEmpty_WhenUserIsDeleted() {
+        String token = tokenService.issue(getUser(), Instant.now());
+        when(userRepository.findTokenVersionByUsername(USERNAME)).thenReturn(Optional.empty());
+        assertTrue(tokenService.verify(token).isEmpty());
+    }
+
+    @Test
+    public void verify_ShouldReturnAuthTime_WhenTokenIsValid() {
+        Instant authTime = Instant.now().minus(Duration.ofHours(1)).truncatedTo(ChronoUnit.SECONDS);
+        String token = tokenService.issue(getUser(), authTime);
+        assertEquals(Optional.of(authTime), tokenService.verify(token).orElseThrow().getAuthTime());
+        assertTrue(tokenService.isRefreshable(authTime));
+    }
+
+    @Test
+    public void verify_ShouldReturnEmpty_WhenMaxLifetimeHasPassedSinceLogin() {
+        Instant authTime = Instant.now().minus(MAX_LIFETIME).minusSeconds(1);
+        assertTrue(tokenService.verify(tokenService.issue(getUser(), authTime)).isEmpty());
+        assertFalse(tokenService.isRefreshable(authTime));
+    }
+
+    @Test
+    public void init_ShouldThrowException_WhenSecretIsEmptyOutsideTestProfile() {
+        assertThrows(IllegalStateException.class, () -> getTokenService("", Duration.ofMinutes(15)));
+    }
+
+    private TokenService getTokenService(String secret, Duration ttl) {
+        TokenConfig tokenConfig = new TokenConfig(secret, ttl, MAX_LIFETIME, Duration.ofSeconds(30), 10000);
+        tokenVersionCache = new TokenVersionCache(tokenConfig, userRepository);
+        return new TokenService(tokenConfig, tokenVersionCache, userRepository, new ObjectMapper(),
+                new MockEnvironment());
+    }
+
+    private UserEntity getUser() {
+        return UserEntity.builder()
+                .username(USERNAME)
+                .role(UserRoleEnum.ROLE_USER)
+                .build();
+    }
+}
@@ -0,0 +1,158 @@
+package com.zhuk.medication.service;
+
+import com.zhuk.medication.dto.CredentialsDto;
+import com.zhuk.medication.dto.ImportRejectDto;
+import com.zhuk.medication.dto.ImportResultDto;
+import com.zhuk.medication.enums.ImportFormatEnum;
+import com.zhuk.medication.exception.medication.MedicationImportInvalidException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+@MedicationServiceTest.WithCustomUserDetails
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class MedicationImportServiceTest {
+    private static final String CSV_HEADER = "name,manufacturer,type,weight,quantity,additional_info\n";
+    @Autowired
+    MedicationImportService medicationImportService;
+    @Autowired
+    UserService userService;
+    @Autowired
+    DataSource dataSource;
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgreSQLContainer = new PostgreSQLContainer<>("postgres:15");
+
+    @BeforeEach
+    public void clearTables() throws Exception {
+        try(Connection connection = dataSource.getConnection()) {
+            connection.prepareStatement("DELETE FROM medication").execute();
+            connection.prepareStatement("DELETE FROM users").execute();
+        }
+        userService.saveUser(CredentialsDto.builder()
+                .username("ADMIN")
+                .password("1234".toCharArray())
+                .build());
+    }
+
+    @Test
+    public void importMedications_ShouldImportValidRowsAndReportRejects_WhenCsvHasBadRows() throws Exception {
+        ImportResultDto result = medicationImportService.importMedications(toStream(CSV_HEADER +
+                "FIRST,TEST,PEN,400,10,\"FIRST, WITH COMMA\"\n" +
+                "SECOND,TEST,GEL,400,10,\n" +
+                "THIRD,TEST,PILLS,heavy,10,\n" +
+                "\n" +
+                ",TEST,PILLS,400,10,\n" +
+                "FOURTH,TEST,PILLS,100,5,\"TAB\tAND \\\\ BACKSLASH\"\n"), ImportFormatEnum.CSV);
+        assertEquals(2, result.getImportedCount());
+        assertEquals(3, result.getRejectedCount());
+        assertEquals(List.of(3L, 4L, 6L), result.getRejects().stream()
+                .map(ImportRejectDto::getLine)
+                .toList());
+        assertEquals(2, countRows());
+        assertEquals("FIRST, WITH COMMA", getAdditionalInfo("FIRST"));
+        assertEquals("TAB\tAND \\\\ BACKSLASH", getAdditionalInfo("FOURTH"));
+    }
+
+    @Test
+    public void importMedications_ShouldImportRows_WhenNdjsonIsProvided() throws Exception {
+        ImportResultDto result = medicationImportService.importMedications(toStream(
+                "{\"name\":\"FIRST\",\"manufacturer\":\"TEST\",\"type\":\"PEN\",\"weight\":400,\"quantity\":10}\n" +
+                "{\"name\":\"SECOND\",\"manufacturer\":\"TEST\",\"type\":\"UNKNOWN\",\"weight\":400,\"quantity\":10}\n" +
+                "{not json}\n"), ImportFormatEnum.NDJSON);
+        assertEquals(1, result.getImportedCount());
+        assertEquals(2, result.getRejectedCount());
+        assertEquals(1, countRows());
+    }
+
+    @Test
+    public void importMedications_ShouldUpdateExistingRows_WhenImportedAgain() throws Exception {
+        medicationImportService.importMedications(toStream(CSV_HEADER + "FIRST,TEST,PEN,400,10,\n"),
+                ImportFormatEnum.CSV);
+        ImportResultDto result = medicationImportService.importMedications(toStream(CSV_HEADER +
+                "FIRST,TEST,PEN,400,20,\n" +
+                "FIRST,TEST,PEN,400,30,LAST\n"), ImportFormatEnum.CSV);
+        assertEquals(1, result.getImportedCount());
+        assertEquals(1, countRows());
+        assertEquals("LAST", getAdditionalInfo("FIRST"));
+    }
+
+    @Test
+    public void importMedications_ShouldThrowException_WhenCsvHeaderMissesColumns() {
+        assertThrows(MedicationImportInvalidException.class, () -> medicationImportService.importMedications(
+                toStream("name,type\nFIRST,PEN\n"), ImportFormatEnum.CSV));
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void importMedications_ShouldImportMillionRowsUnderMinute_WhenCsvIsStreamed() throws Exception {
+        int rows = 1_000_000;
+        Iterator<InputStream> lines = Stream.concat(Stream.of(CSV_HEADER), IntStream.range(0, rows)
+                        .mapToObj(i -> "BULK" + i + ",TEST,PILLS," + (i % 1000 + 1) + ",10,INFO " + i + "\n"))
+                .map(this::toStream)
+                .iterator();
+        long start = System.nanoTime();
+        ImportResultDto result = medicationImportService.importMedications(new SequenceInputStream(
+                new Enumeration<>() {
+                    @Override
+                    public boolean hasMoreElements() {
+                        return lines.hasNext();
+                    }
+
+                    @Override
+                    public InputStream nextElement() {
+                        return lines.next();
+                    }
+                }), ImportFormatEnum.CSV);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertEquals(rows, result.getImportedCount());
+        assertEquals(rows, countRows());
+        assertTrue(elapsedMillis < 60_000, () -> "Imported " + rows + " rows in " + elapsedMillis + " ms");
+    }
+
+    private InputStream toStream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private int countRows() throws Exception {
+        try(Connection connection = dataSource.getConnection()) {
+            ResultSet resultSet = connection.prepareStatement("SELECT COUNT(*) FROM medication").executeQuery();
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    private String getAdditionalInfo(String name) throws Exception {
+        try(Connection connection = dataSource.getConnection()) {
+            PreparedStatement preparedStatement = connection.prepareStatement(
+                    "SELECT additional_info FROM medication WHERE name = ?");
+            preparedStatement.setString(1, name);
+            ResultSet resultSet = preparedStatement.executeQuery();
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+}
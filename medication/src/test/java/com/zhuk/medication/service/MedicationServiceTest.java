@@ -1,17 +1,30 @@
 package com.zhuk.medication.service;
 
+import com.zhuk.medication.config.CatalogConfig;
 import com.zhuk.medication.dto.CredentialsDto;
 import com.zhuk.medication.dto.MedicationDto;
+import com.zhuk.medication.dto.MedicationFilterDto;
+import com.zhuk.medication.dto.MedicationPageDto;
 import com.zhuk.medication.dto.NewMedicationDto;
+import com.zhuk.medication.dto.QuantityChangeDto;
+import com.zhuk.medication.dto.QuantityChangeResultDto;
 import com.zhuk.medication.dto.UpdateQuantityDto;
 import com.zhuk.medication.entity.UserEntity;
 import com.zhuk.medication.enums.MedicationTypeEnum;
 import com.zhuk.medication.enums.UserRoleEnum;
 import com.zhuk.medication.exception.medication.MedicationAlreadyExistsException;
+import com.zhuk.medication.exception.medication.IdempotencyKeyMismatchException;
+import com.zhuk.medication.exception.medication.MedicationBadRequestException;
+import com.zhuk.medication.exception.medication.MedicationBulkInvalidException;
+import com.zhuk.medication.exception.medication.MedicationNoRightsException;
 import com.zhuk.medication.exception.medication.MedicationNotFoundException;
 import com.zhuk.medication.exception.medication.MedicationNotEnoughQuantityException;
 import com.zhuk.medication.security.CustomUserDetails;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -22,6 +35,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.test.context.support.WithSecurityContext;
 import org.springframework.security.test.context.support.WithSecurityContextFactory;
@@ -35,14 +49,23 @@ import java.lang.annotation.RetentionPolicy;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @Testcontainers
 @MedicationServiceTest.WithCustomUserDetails
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"})
 public class MedicationServiceTest {
     @Autowired
     @SpyBean
@@ -51,12 +74,22 @@ public class MedicationServiceTest {
     DataSource dataSource;
     @Autowired
     UserService userService;
+    @Autowired
+    IdempotencyService idempotencyService;
+    @Autowired
+    CatalogConfig catalogConfig;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
     @Container
     @ServiceConnection
     static PostgreSQLContainer<?> postgreSQLContainer = new PostgreSQLContainer<>("postgres:15");
 
     @BeforeEach
     public void clearTables() throws Exception {
+        try(Connection connection = dataSource.getConnection()) {
+            PreparedStatement preparedStatement = connection.prepareStatement("DELETE FROM idempotency_keys");
+            preparedStatement.execute();
+        }
         try(Connection connection = dataSource.getConnection()) {
             PreparedStatement preparedStatement = connection.prepareStatement("DELETE FROM medication");
             preparedStatement.execute();
@@ -128,6 +161,91 @@ public class MedicationServiceTest {
         assertThrows(MedicationNotFoundException.class, () -> medicationService.findById(999999L));
     }
 
+    @Test
+    public void findAllByIds_ShouldReturnOnlyExistingMedications_WhenSomeIdsAreUnknown() throws Exception {
+        medicationService.saveMedication(NewMedicationDto.builder()
+                .name("FIRST")
+                .manufacturer("TEST")
+                .type("PEN")
+                .weight(400)
+                .quantity(10)
+                .additionalInfo("FIRST INFO")
+                .build());
+        medicationService.saveMedication(NewMedicationDto.builder()
+                .name("SECOND")
+                .manufacturer("TEST")
+                .type("PEN")
+                .weight(500)
+                .quantity(10)
+                .additionalInfo("SECOND INFO")
+                .build());
+        Long firstId = getIdByName("FIRST");
+        Long secondId = getIdByName("SECOND");
+        List<MedicationDto> medications = medicationService.findAllByIds(List.of(firstId, secondId, firstId, 999999L));
+        assertEquals(2, medications.size());
+        assertTrue(medications.stream().anyMatch(medication -> medication.getId().equals(firstId)));
+        assertTrue(medications.stream().anyMatch(medication -> medication.getId().equals(secondId)));
+    }
+
+    @Test
+    public void findAllByIds_ShouldThrowException_WhenTooManyIdsAreRequested() {
+        List<Long> ids = LongStream.rangeClosed(1, catalogConfig.getMaxIdsPerRequest() + 1).boxed().toList();
+        assertThrows(MedicationBadRequestException.class, () -> medicationService.findAllByIds(ids));
+    }
+
+    @Test
+    public void search_ShouldFilterAndPageByCursor_WhenFiltersProvided() throws Exception {
+        medicationService.saveMedication(getNewMedicationDto("ASPIRIN", 3));
+        medicationService.saveMedication(getNewMedicationDto("ASPIRIN FORTE", 50));
+        medicationService.saveMedication(getNewMedicationDto("PARACETAMOL", 2));
+        medicationService.saveMedication(getNewMedicationDto("IBUPROFEN 100%", 1));
+        MedicationPageDto firstPage = medicationService.search(MedicationFilterDto.builder()
+                .name("aspirin")
+                .build(), null, 1);
+        assertEquals(List.of("ASPIRIN"), firstPage.getMedications().stream().map(MedicationDto::getName).toList());
+        MedicationPageDto secondPage = medicationService.search(MedicationFilterDto.builder()
+                .name("aspirin")
+                .build(), firstPage.getNextCursor(), 1);
+        assertEquals(List.of("ASPIRIN FORTE"), secondPage.getMedications().stream().map(MedicationDto::getName).toList());
+        assertNull(secondPage.getNextCursor());
+        assertEquals(List.of("ASPIRIN", "PARACETAMOL", "IBUPROFEN 100%"), medicationService.search(
+                MedicationFilterDto.builder().maxQuantity(5).type(MedicationTypeEnum.PEN).build(), null, 10)
+                .getMedications().stream().map(MedicationDto::getName).toList());
+        assertEquals(List.of("PARACETAMOL"), medicationService.search(
+                MedicationFilterDto.builder().namePrefix("para").minWeight(400).maxWeight(400).build(), null, 10)
+                .getMedications().stream().map(MedicationDto::getName).toList());
+        assertEquals(List.of("IBUPROFEN 100%"), medicationService.search(
+                MedicationFilterDto.builder().name("0%").build(), null, 10)
+                .getMedications().stream().map(MedicationDto::getName).toList());
+        assertTrue(medicationService.search(MedicationFilterDto.builder().manufacturer("unknown").build(), null, 10)
+                .getMedications().isEmpty());
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void search_ShouldAnswerInMilliseconds_WhenCatalogHasMillionRows() throws Exception {
+        medicationService.saveMedication(getNewMedicationDto("SEED", 10));
+        try(Connection connection = dataSource.getConnection()) {
+            connection.prepareStatement("INSERT INTO medication " +
+                    "(name, manufacturer, type, weight, quantity, additional_info, user_id) " +
+                    "SELECT 'MEDICATION ' || md5(i::text), 'MANUFACTURER ' || (i % 1000), 'PILLS', i % 1000 + 1, " +
+                    "i % 500, NULL, (SELECT user_id FROM medication WHERE name = 'SEED') " +
+                    "FROM generate_series(1, 1000000) i").execute();
+            connection.prepareStatement("ANALYZE medication").execute();
+        }
+        MedicationFilterDto filter = MedicationFilterDto.builder()
+                .name("abcd")
+                .maxQuantity(100)
+                .build();
+        medicationService.search(filter, null, 50);
+        long start = System.nanoTime();
+        MedicationPageDto page = medicationService.search(filter, null, 50);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(page.getMedications().stream().allMatch(medication -> medication.getQuantity() <= 100
+                && medication.getName().toLowerCase().contains("abcd")));
+        assertTrue(elapsedMillis < 200, () -> "Searched 1M rows in " + elapsedMillis + " ms");
+    }
+
     @Test
     public void saveMedication_ShouldSave_WhenHappyPath() throws Exception{
         try(Connection connection = dataSource.getConnection()) {
@@ -168,6 +286,17 @@ public class MedicationServiceTest {
         assertThrows(MedicationAlreadyExistsException.class, () -> medicationService.saveMedication(newMedicationDto));
     }
 
+    @Test
+    public void saveMedication_ShouldSave_WhenAnotherUserHasSameNameAndWeight() throws Exception {
+        insertMedicationWithoutOwner("FIRST");
+        insertMedicationWithoutOwner("FIRST");
+        MedicationDto saved = medicationService.saveMedication(getNewMedicationDto("FIRST", 10));
+        assertEquals(10, saved.getQuantity());
+        assertEquals(3, countRows("medication"));
+        assertThrows(MedicationAlreadyExistsException.class,
+                () -> medicationService.saveMedication(getNewMedicationDto("FIRST", 20)));
+    }
+
     @Test
     public void deleteMedication_ShouldDeleteMedication_WhenMedicationExists() throws Exception {
         try(Connection connection = dataSource.getConnection()) {
@@ -267,6 +396,49 @@ public class MedicationServiceTest {
         }
     }
 
+    @Test
+    public void updateMedication_ShouldReturnStoredMedication_WhenMedicationIsUpserted() throws Exception {
+        MedicationDto saved = medicationService.updateMedication(getNewMedicationDto("FIRST", 10));
+        MedicationDto updated = medicationService.updateMedication(getNewMedicationDto("FIRST", 20));
+        assertEquals(getIdByName("FIRST"), saved.getId());
+        assertEquals(saved.getId(), updated.getId());
+        assertEquals("FIRST", updated.getName());
+        assertEquals(20, updated.getQuantity());
+        assertEquals(1, countRows("medication"));
+    }
+
+    @Test
+    public void updateMedications_ShouldInsertThenUpdate_WhenThousandsOfMedicationsAreProvided() throws Exception {
+        int count = 2000;
+        List<NewMedicationDto> medications = new ArrayList<>();
+        for(int i = 0; i < count; i++) {
+            medications.add(getNewMedicationDto("BULK" + i, 10));
+        }
+        medicationService.updateMedications(medications);
+        assertEquals(count, countRows("medication"));
+        medicationService.updateMedications(medications.stream()
+                .map(medication -> medication.toBuilder().quantity(5).build())
+                .toList());
+        assertEquals(count, countRows("medication"));
+        assertEquals(5, medicationService.findById(getIdByName("BULK" + (count - 1))).getQuantity());
+    }
+
+    @Test
+    public void updateMedications_ShouldThrowBadRequestWithIndex_WhenMedicationIsInvalid() throws Exception {
+        List<NewMedicationDto> withoutType = List.of(getNewMedicationDto("FIRST", 10),
+                getNewMedicationDto("SECOND", 10).toBuilder().type(null).build());
+        MedicationBulkInvalidException exception = assertThrows(MedicationBulkInvalidException.class,
+                () -> medicationService.updateMedications(withoutType));
+        assertTrue(exception.getMessage().contains("index 1"));
+        List<NewMedicationDto> withUnknownType = List.of(getNewMedicationDto("FIRST", 10).toBuilder()
+                .type("UNKNOWN").build());
+        assertThrows(MedicationBulkInvalidException.class, () -> medicationService.updateMedications(withUnknownType));
+        List<NewMedicationDto> withoutName = List.of(getNewMedicationDto("FIRST", 10).toBuilder()
+                .name(null).build());
+        assertThrows(MedicationBulkInvalidException.class, () -> medicationService.updateMedications(withoutName));
+        assertEquals(0, countRows("medication"));
+    }
+
     @Test
     public void updateQuantityForMedication_ShouldUpdateQuantity_WhenHappyPath() throws Exception {
         try(Connection connection = dataSource.getConnection()) {
@@ -307,12 +479,241 @@ public class MedicationServiceTest {
                 () -> medicationService.updateQuantity(id, UpdateQuantityDto.builder().quantity(-100).build()));
     }
 
+    @Test
+    public void updateQuantityForMedication_ShouldNotOversell_WhenUpdatedConcurrently() throws Exception {
+        int stock = 1000;
+        int requests = 3000;
+        NewMedicationDto newMedicationDto = NewMedicationDto.builder()
+                .name("FIRST")
+                .manufacturer("TEST")
+                .type("PEN")
+                .weight(400)
+                .quantity(stock)
+                .additionalInfo("FIRST INFO")
+                .build();
+        medicationService.saveMedication(newMedicationDto);
+        Long id = getIdByName("FIRST");
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executorService = new DelegatingSecurityContextExecutorService(
+                Executors.newFixedThreadPool(8), SecurityContextHolder.getContext());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                futures.add(executorService.submit(() -> {
+                    try {
+                        medicationService.updateQuantity(id, UpdateQuantityDto.builder().quantity(-1).build());
+                        succeeded.incrementAndGet();
+                    } catch (MedicationNotEnoughQuantityException e) {
+                        rejected.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        assertEquals(stock, succeeded.get());
+        assertEquals(requests - stock, rejected.get());
+        assertEquals(0, medicationService.findById(id).getQuantity());
+    }
+
+    @Test
+    public void updateQuantities_ShouldReturnResultPerChangeInRequestOrder_WhenEnoughQuantity() throws Exception {
+        medicationService.saveMedication(getNewMedicationDto("FIRST", 10));
+        medicationService.saveMedication(getNewMedicationDto("SECOND", 10));
+        Long firstId = getIdByName("FIRST");
+        Long secondId = getIdByName("SECOND");
+        List<QuantityChangeResultDto> results = medicationService.updateQuantities(List.of(
+                QuantityChangeDto.builder().medicationId(secondId).quantity(-3).build(),
+                QuantityChangeDto.builder().medicationId(firstId).quantity(-4).build(),
+                QuantityChangeDto.builder().medicationId(secondId).quantity(-2).build()));
+        assertEquals(List.of(
+                QuantityChangeResultDto.builder().medicationId(secondId).appliedQuantity(-3).remainingQuantity(5).build(),
+                QuantityChangeResultDto.builder().medicationId(firstId).appliedQuantity(-4).remainingQuantity(6).build(),
+                QuantityChangeResultDto.builder().medicationId(secondId).appliedQuantity(-2).remainingQuantity(5).build()),
+                results);
+    }
+
+    @Test
+    public void updateQuantities_ShouldApplyNothing_WhenOneChangeHasNotEnoughQuantity() throws Exception {
+        medicationService.saveMedication(getNewMedicationDto("FIRST", 10));
+        medicationService.saveMedication(getNewMedicationDto("SECOND", 10));
+        Long firstId = getIdByName("FIRST");
+        Long secondId = getIdByName("SECOND");
+        assertThrows(MedicationNotEnoughQuantityException.class, () -> medicationService.updateQuantities(List.of(
+                QuantityChangeDto.builder().medicationId(firstId).quantity(-4).build(),
+                QuantityChangeDto.builder().medicationId(secondId).quantity(-100).build())));
+        assertEquals(10, medicationService.findById(firstId).getQuantity());
+        assertEquals(10, medicationService.findById(secondId).getQuantity());
+    }
+
+    @Test
+    public void updateQuantities_ShouldApplyNothing_WhenOneChangeHasNoQuantity() throws Exception {
+        medicationService.saveMedication(getNewMedicationDto("FIRST", 10));
+        Long id = getIdByName("FIRST");
+        List<QuantityChangeDto> changes = List.of(
+                QuantityChangeDto.builder().medicationId(id).quantity(-4).build(),
+                QuantityChangeDto.builder().medicationId(id).build());
+        MedicationBadRequestException exception = assertThrows(MedicationBadRequestException.class,
+                () -> medicationService.updateQuantities(changes, "KEY"));
+        assertTrue(exception.getMessage().contains("index 1"));
+        assertEquals(10, medicationService.findById(id).getQuantity());
+        assertEquals(0, countRows("idempotency_keys"));
+    }
+
+    @Test
+    public void updateQuantityForMedication_ShouldApplyOnce_WhenSameKeysAreReplayedConcurrently() throws Exception {
+        int keys = 100;
+        int replays = 10;
+        medicationService.saveMedication(getNewMedicationDto("FIRST", 1000));
+        Long id = getIdByName("FIRST");
+        ExecutorService executorService = new DelegatingSecurityContextExecutorService(
+                Executors.newFixedThreadPool(8), SecurityContextHolder.getContext());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int replay = 0; replay < replays; replay++) {
+                for (int key = 0; key < keys; key++) {
+                    String idempotencyKey = "KEY-" + key;
+                    futures.add(executorService.submit(() -> medicationService.updateQuantity(id,
+                            UpdateQuantityDto.builder().quantity(-1).build(), idempotencyKey)));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        assertEquals(1000 - keys, medicationService.findById(id).getQuantity());
+        assertEquals(keys, countRows("idempotency_keys"));
+    }
+
+    @Test
+    public void updateQuantities_ShouldReturnStoredResult_WhenKeyIsReplayed() throws Exception {
+        medicationService.saveMedication(getNewMedicationDto("FIRST", 10));
+        Long id = getIdByName("FIRST");
+        List<QuantityChangeDto> changes = List.of(QuantityChangeDto.builder().medicationId(id).quantity(-4).build());
+        List<QuantityChangeResultDto> first = medicationService.updateQuantities(changes, "KEY");
+        List<QuantityChangeResultDto> replayed = medicationService.updateQuantities(changes, "KEY");
+        assertEquals(first, replayed);
+        assertEquals(6, medicationService.findById(id).getQuantity());
+    }
+
+    @Test
+    public void updateQuantities_ShouldRejectReplay_WhenKeyIsReusedForAnotherRequest() throws Exception {
+        medicationService.saveMedication(getNewMedicationDto("FIRST", 10));
+        Long id = getIdByName("FIRST");
+        medicationService.updateQuantities(List.of(QuantityChangeDto.builder().medicationId(id).quantity(-4).build()), "KEY");
+        List<QuantityChangeDto> otherChanges = List.of(QuantityChangeDto.builder().medicationId(id).quantity(-5).build());
+        assertThrows(IdempotencyKeyMismatchException.class,
+                () -> medicationService.updateQuantities(otherChanges, "KEY"));
+        assertEquals(6, medicationService.findById(id).getQuantity());
+    }
+
+    @Test
+    public void deleteExpired_ShouldRemoveOnlyExpiredKeys_WhenCalled() throws Exception {
+        try(Connection connection = dataSource.getConnection()) {
+            try(PreparedStatement preparedStatement = connection.prepareStatement(
+                    "INSERT INTO idempotency_keys (idempotency_key, request_hash, expires_at) " +
+                            "VALUES ('EXPIRED', 'HASH', now() - interval '1 hour'), " +
+                            "('ACTIVE', 'HASH', now() + interval '1 hour')")) {
+                preparedStatement.execute();
+            }
+        }
+        idempotencyService.deleteExpired();
+        assertEquals(1, countRows("idempotency_keys"));
+    }
+
     @Test
     public void updateQuantityForMedication_ShouldReturnNotFound_WhenMedicationDoesntExist() throws Exception {
         assertThrows(MedicationNotFoundException.class,
                 () -> medicationService.updateQuantity(1000L, UpdateQuantityDto.builder().quantity(1).build()));
     }
 
+    @Test
+    public void findById_ShouldIssueSingleQuery_WhenMedicationIsOwned() throws Exception {
+        medicationService.saveMedication(getNewMedicationDto("FIRST", 10));
+        Long id = getIdByName("FIRST");
+        Statistics statistics = getClearedStatistics();
+        medicationService.findById(id);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void updateQuantityForMedication_ShouldIssueSingleQuery_WhenMedicationIsOwned() throws Exception {
+        medicationService.saveMedication(getNewMedicationDto("FIRST", 10));
+        Long id = getIdByName("FIRST");
+        Statistics statistics = getClearedStatistics();
+        medicationService.updateQuantity(id, UpdateQuantityDto.builder().quantity(-1).build());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void deleteMedication_ShouldIssueSingleQuery_WhenMedicationIsOwned() throws Exception {
+        medicationService.saveMedication(getNewMedicationDto("FIRST", 10));
+        Long id = getIdByName("FIRST");
+        Statistics statistics = getClearedStatistics();
+        medicationService.deleteMedication(id);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, countRows("medication"));
+    }
+
+    @Test
+    public void findById_ShouldThrowNoRightsException_WhenMedicationBelongsToAnotherUser() throws Exception {
+        Long id = insertMedicationWithoutOwner("FOREIGN");
+        Statistics statistics = getClearedStatistics();
+        assertThrows(MedicationNoRightsException.class, () -> medicationService.findById(id));
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void updateQuantityForMedication_ShouldThrowNoRightsException_WhenMedicationBelongsToAnotherUser()
+            throws Exception {
+        Long id = insertMedicationWithoutOwner("FOREIGN");
+        assertThrows(MedicationNoRightsException.class,
+                () -> medicationService.updateQuantity(id, UpdateQuantityDto.builder().quantity(-1).build()));
+        assertThrows(MedicationNoRightsException.class, () -> medicationService.deleteMedication(id));
+        assertEquals(1, countRows("medication"));
+    }
+
+    private Statistics getClearedStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    private Long insertMedicationWithoutOwner(String name) throws Exception {
+        try(Connection connection = dataSource.getConnection()) {
+            PreparedStatement preparedStatement = connection.prepareStatement(
+                    "INSERT INTO medication(name, manufacturer, type, weight, quantity) VALUES (?, 'TEST', 'PEN', 400, 10)");
+            preparedStatement.setString(1, name);
+            preparedStatement.execute();
+        }
+        return getIdByName(name);
+    }
+
+    private NewMedicationDto getNewMedicationDto(String name, int quantity) {
+        return NewMedicationDto.builder()
+                .name(name)
+                .manufacturer("TEST")
+                .type("PEN")
+                .weight(400)
+                .quantity(quantity)
+                .additionalInfo(name + " INFO")
+                .build();
+    }
+
+    private int countRows(String table) throws Exception {
+        try(Connection connection = dataSource.getConnection()) {
+            ResultSet resultSet = connection.prepareStatement("SELECT COUNT(*) FROM " + table).executeQuery();
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
     private Long getIdByName(String name) throws Exception{
         try(Connection connection = dataSource.getConnection()) {
             String idQuery = "SELECT id FROM medication m where name = ?";
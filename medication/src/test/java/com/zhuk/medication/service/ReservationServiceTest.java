@@ -0,0 +1,223 @@
+package com.zhuk.medication.service;
+
+import com.zhuk.medication.dto.CredentialsDto;
+import com.zhuk.medication.dto.NewMedicationDto;
+import com.zhuk.medication.dto.NewReservationDto;
+import com.zhuk.medication.entity.UserEntity;
+import com.zhuk.medication.enums.UserRoleEnum;
+import com.zhuk.medication.exception.medication.MedicationNotEnoughQuantityException;
+import com.zhuk.medication.exception.medication.MedicationReservationAlreadyExistsException;
+import com.zhuk.medication.exception.medication.MedicationReservationInvalidException;
+import com.zhuk.medication.exception.medication.MedicationReservationNotFoundException;
+import com.zhuk.medication.security.CustomUserDetails;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.test.context.support.WithSecurityContext;
+import org.springframework.security.test.context.support.WithSecurityContextFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+@ReservationServiceTest.WithCustomUserDetails
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "medication.reservations.sweep-delay=PT1H")
+public class ReservationServiceTest {
+    @Autowired
+    ReservationService reservationService;
+    @Autowired
+    MedicationService medicationService;
+    @Autowired
+    UserService userService;
+    @Autowired
+    DataSource dataSource;
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgreSQLContainer = new PostgreSQLContainer<>("postgres:15");
+
+    @BeforeEach
+    public void clearTables() throws Exception {
+        try(Connection connection = dataSource.getConnection()) {
+            PreparedStatement preparedStatement = connection.prepareStatement("DELETE FROM medication");
+            preparedStatement.execute();
+        }
+        try(Connection connection = dataSource.getConnection()) {
+            PreparedStatement preparedStatement = connection.prepareStatement("DELETE FROM users");
+            preparedStatement.execute();
+        }
+    }
+
+    @BeforeEach
+    public void setup() {
+        userService.saveUser(CredentialsDto.builder()
+                .username("ADMIN")
+                .password("1234".toCharArray())
+                .build());
+    }
+
+    @Test
+    public void reserve_ShouldHoldQuantity_WhenEnoughQuantity() throws Exception {
+        Long id = saveMedication(10);
+        reservationService.reserve(id, getNewReservationDto("KEY", 4, null));
+        assertEquals(6, medicationService.findById(id).getQuantity());
+        assertEquals(1, countReservations());
+    }
+
+    @Test
+    public void reserve_ShouldNotHoldTwice_WhenKeyIsRetried() throws Exception {
+        Long id = saveMedication(10);
+        reservationService.reserve(id, getNewReservationDto("KEY", 4, null));
+        reservationService.reserve(id, getNewReservationDto("KEY", 4, null));
+        assertEquals(6, medicationService.findById(id).getQuantity());
+        assertThrows(MedicationReservationAlreadyExistsException.class,
+                () -> reservationService.reserve(id, getNewReservationDto("KEY", 5, null)));
+    }
+
+    @Test
+    public void reserve_ShouldKeepSeparateReservations_WhenUsersShareKey() throws Exception {
+        Long id = saveMedication(10);
+        userService.saveUser(CredentialsDto.builder()
+                .username("OTHER")
+                .password("1234".toCharArray())
+                .build());
+        reservationService.reserve(id, getNewReservationDto("KEY", 4, null));
+        SecurityContext context = SecurityContextHolder.getContext();
+        SecurityContextHolder.setContext(getSecurityContext("OTHER"));
+        try {
+            assertEquals("KEY", reservationService.reserve(id, getNewReservationDto("KEY", 5, null))
+                    .getReservationKey());
+            reservationService.release("KEY");
+        } finally {
+            SecurityContextHolder.setContext(context);
+        }
+        assertEquals(6, medicationService.findById(id).getQuantity());
+        assertEquals(1, countReservations());
+        reservationService.commit("KEY");
+        assertEquals(0, countReservations());
+    }
+
+    @Test
+    public void reserve_ShouldThrowInvalid_WhenKeyIsTooLong() throws Exception {
+        Long id = saveMedication(10);
+        assertThrows(MedicationReservationInvalidException.class,
+                () -> reservationService.reserve(id, getNewReservationDto("K".repeat(128), 4, null)));
+        assertEquals(10, medicationService.findById(id).getQuantity());
+    }
+
+    @Test
+    public void reserve_ShouldThrowNotEnoughQuantity_WhenStockIsLow() throws Exception {
+        Long id = saveMedication(10);
+        assertThrows(MedicationNotEnoughQuantityException.class,
+                () -> reservationService.reserve(id, getNewReservationDto("KEY", 100, null)));
+        assertEquals(10, medicationService.findById(id).getQuantity());
+        assertEquals(0, countReservations());
+    }
+
+    @Test
+    public void commit_ShouldKeepQuantityTaken_WhenReservationExists() throws Exception {
+        Long id = saveMedication(10);
+        reservationService.reserve(id, getNewReservationDto("KEY", 4, null));
+        reservationService.commit("KEY");
+        assertEquals(6, medicationService.findById(id).getQuantity());
+        assertEquals(0, countReservations());
+    }
+
+    @Test
+    public void commit_ShouldThrowNotFound_WhenReservationDoesntExist() {
+        assertThrows(MedicationReservationNotFoundException.class, () -> reservationService.commit("UNKNOWN"));
+    }
+
+    @Test
+    public void release_ShouldReturnQuantity_WhenReservationExists() throws Exception {
+        Long id = saveMedication(10);
+        reservationService.reserve(id, getNewReservationDto("KEY", 4, null));
+        reservationService.release("KEY");
+        reservationService.release("KEY");
+        assertEquals(10, medicationService.findById(id).getQuantity());
+        assertEquals(0, countReservations());
+    }
+
+    @Test
+    public void releaseExpired_ShouldReturnQuantity_WhenReservationsExpired() throws Exception {
+        Long id = saveMedication(10);
+        reservationService.reserve(id, getNewReservationDto("EXPIRED_1", 2, 0L));
+        reservationService.reserve(id, getNewReservationDto("EXPIRED_2", 3, 0L));
+        reservationService.reserve(id, getNewReservationDto("ACTIVE", 4, 600L));
+        reservationService.releaseExpired();
+        assertEquals(6, medicationService.findById(id).getQuantity());
+        assertEquals(1, countReservations());
+        assertThrows(MedicationReservationNotFoundException.class, () -> reservationService.commit("EXPIRED_1"));
+    }
+
+    private NewReservationDto getNewReservationDto(String key, int quantity, Long ttlSeconds) {
+        return NewReservationDto.builder()
+                .key(key)
+                .quantity(quantity)
+                .ttlSeconds(ttlSeconds)
+                .build();
+    }
+
+    private Long saveMedication(int quantity) {
+        return medicationService.saveMedication(NewMedicationDto.builder()
+                .name("FIRST")
+                .manufacturer("TEST")
+                .type("PEN")
+                .weight(400)
+                .quantity(quantity)
+                .additionalInfo("FIRST INFO")
+                .build()).getId();
+    }
+
+    private int countReservations() throws Exception {
+        try(Connection connection = dataSource.getConnection()) {
+            PreparedStatement preparedStatement =
+                    connection.prepareStatement("SELECT COUNT(*) FROM medication_reservations");
+            ResultSet resultSet = preparedStatement.executeQuery();
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    private static SecurityContext getSecurityContext(String username) {
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        UserDetails principal = new CustomUserDetails(UserEntity.builder()
+                .id(UUID.randomUUID())
+                .username(username)
+                .password(new BCryptPasswordEncoder().encode("1234"))
+                .role(UserRoleEnum.ROLE_ADMIN).build());
+        Authentication authentication = new UsernamePasswordAuthenticationToken(principal, principal.getPassword(), principal.getAuthorities());
+        context.setAuthentication(authentication);
+        return context;
+    }
+
+    static class CustomUserDetailsSecurityContextFactory implements WithSecurityContextFactory<WithCustomUserDetails> {
+        @Override
+        public SecurityContext createSecurityContext(WithCustomUserDetails withCustomUserDetails) {
+            return getSecurityContext("ADMIN");
+        }
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @WithSecurityContext(factory = CustomUserDetailsSecurityContextFactory.class)
+    @interface WithCustomUserDetails {
+    }
+}